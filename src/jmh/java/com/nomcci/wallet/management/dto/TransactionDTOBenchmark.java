@@ -0,0 +1,101 @@
+package com.nomcci.wallet.management.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.nomcci.wallet.management.model.LedgerEntry;
+import com.nomcci.wallet.management.model.LedgerSource;
+import com.nomcci.wallet.management.model.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo de filas del historial a {@link TransactionDTO} y su serialización JSON: una página de
+ * {@code /transactions} completa y, para la exportación NDJSON, un objeto por fila.
+ * Se ejecuta con {@code gradle jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionDTOBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    // Configurado como el ObjectMapper de Spring Boot: fechas ISO-8601 y módulos del classpath
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private List<LedgerEntry> entries;
+    private Map<Long, String> counterpartyNames;
+    private List<TransactionDTO> content;
+
+    @Setup
+    public void setUp() {
+        Instant base = Instant.parse("2024-06-01T12:00:00Z");
+        entries = new ArrayList<>(pageSize);
+        counterpartyNames = new HashMap<>();
+        for (int i = 0; i < pageSize; i++) {
+            Long counterparty = i % 3 == 0 ? null : 1_000L + i % 10;
+            entries.add(new LedgerEntry(i % 4 == 0 ? LedgerSource.ARCHIVED : LedgerSource.ACTIVE, (long) i,
+                    base.minusSeconds(i * 37L), counterparty == null ? TransactionType.DEPOSIT : TransactionType.TRANSFER,
+                    new BigDecimal("12.34").add(BigDecimal.valueOf(i)), counterparty));
+            if (counterparty != null) {
+                counterpartyNames.put(counterparty, "User" + counterparty);
+            }
+        }
+        content = map();
+    }
+
+    @Benchmark
+    public List<TransactionDTO> map() {
+        List<TransactionDTO> mapped = new ArrayList<>(entries.size());
+        for (LedgerEntry entry : entries) {
+            String firstName = entry.getCounterpartyUserId() == null
+                    ? "N/A"
+                    : counterpartyNames.getOrDefault(entry.getCounterpartyUserId(), "N/A");
+            mapped.add(new TransactionDTO(entry.getTimestamp(), firstName, entry.getTransactionType().name(), entry.getAmount()));
+        }
+        return mapped;
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(new TransactionHistoryPageDTO(content, "cursor"));
+    }
+
+    @Benchmark
+    public void serializeNdjsonRows(Blackhole blackhole) throws Exception {
+        for (TransactionDTO row : content) {
+            blackhole.consume(objectMapper.writeValueAsString(row));
+        }
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(new TransactionHistoryPageDTO(map(), "cursor"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.nomcci.wallet.management.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de construir el JWKS a partir de la llave pública y de serializarlo con su ETag,
+ * el trabajo que {@code JwksController} hace una sola vez al arrancar.
+ * Se ejecuta con {@code gradle jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwksUtilBenchmark {
+
+    private PublicKey publicKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(2048);
+        publicKey = keyGen.generateKeyPair().getPublic();
+    }
+
+    @Benchmark
+    public Map<String, Object> generateJwks() {
+        return JwksUtil.generateJWKS(publicKey);
+    }
+
+    @Benchmark
+    public JwksUtil.JwksDocument precomputeDocument() {
+        return JwksUtil.precompute(publicKey);
+    }
+}
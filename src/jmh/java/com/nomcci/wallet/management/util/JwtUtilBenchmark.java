@@ -0,0 +1,51 @@
+package com.nomcci.wallet.management.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPairGenerator;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara firmar el token de servicio en cada llamada con reutilizar el token vigente.
+ * Se ejecuta con {@code gradle jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(2048);
+        jwtUtil = new JwtUtil(keyGen.generateKeyPair().getPrivate(), Clock.systemUTC());
+    }
+
+    @Benchmark
+    public String signPerCall() {
+        return jwtUtil.signServiceToken(Instant.now());
+    }
+
+    @Benchmark
+    public String cachedToken() {
+        return jwtUtil.generateServiceToken();
+    }
+}
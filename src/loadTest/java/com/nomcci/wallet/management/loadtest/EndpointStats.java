@@ -0,0 +1,107 @@
+package com.nomcci.wallet.management.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Latencias y resultados de una operación. Cada cliente registra en su propia instancia,
+ * sin sincronización, y al terminar se combinan para calcular los percentiles.
+ */
+final class EndpointStats {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long successes;
+    private long clientErrors;
+    private long serverErrors;
+    private long ioErrors;
+
+    /**
+     * Registra una respuesta HTTP.
+     *
+     * @param latencyNanos tiempo hasta recibir la respuesta completa
+     * @param status       código de estado
+     */
+    void record(long latencyNanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (status >= 500) {
+            serverErrors++;
+        } else if (status >= 400) {
+            clientErrors++;
+        } else {
+            successes++;
+        }
+    }
+
+    /**
+     * Registra una petición sin respuesta (conexión rechazada, tiempo de espera agotado).
+     */
+    void recordIoError() {
+        ioErrors++;
+    }
+
+    void merge(EndpointStats other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + other.count));
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        successes += other.successes;
+        clientErrors += other.clientErrors;
+        serverErrors += other.serverErrors;
+        ioErrors += other.ioErrors;
+    }
+
+    Summary summarize(Duration measured) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        long requests = count + ioErrors;
+        long failures = clientErrors + serverErrors + ioErrors;
+        return new Summary(
+                requests,
+                requests / (measured.toNanos() / 1e9),
+                requests == 0 ? 0 : (double) failures / requests,
+                successes,
+                clientErrors,
+                serverErrors,
+                ioErrors,
+                millis(percentile(sorted, 0.50)),
+                millis(percentile(sorted, 0.90)),
+                millis(percentile(sorted, 0.99)),
+                millis(percentile(sorted, 0.999)),
+                millis(count == 0 ? 0 : sorted[count - 1]));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        // Rango más cercano: el menor valor que cubre la fracción pedida de las muestras
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * Resultado de una operación en el informe; las latencias van en milisegundos.
+     */
+    record Summary(long requests,
+                   double throughput,
+                   double errorRate,
+                   long status2xx,
+                   long status4xx,
+                   long status5xx,
+                   long ioErrors,
+                   double p50,
+                   double p90,
+                   double p99,
+                   double p999,
+                   double max) {
+    }
+}
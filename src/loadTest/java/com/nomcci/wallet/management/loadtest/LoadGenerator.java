@@ -0,0 +1,152 @@
+package com.nomcci.wallet.management.loadtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Clientes en bucle cerrado: cada uno elige un usuario al azar y una operación según la mezcla,
+ * espera la respuesta y lanza la siguiente. Las peticiones del calentamiento no se miden.
+ */
+final class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final long[] userIds;
+    private final String[] tokens;
+    private final BigDecimal amount;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    LoadGenerator(HttpClient httpClient, String baseUrl, long[] userIds, String[] tokens,
+                  BigDecimal amount, Map<Operation, Integer> mix) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.userIds = userIds;
+        this.tokens = tokens;
+        this.amount = amount;
+        this.operations = mix.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Ejecuta la carga y devuelve las estadísticas combinadas de todos los clientes.
+     */
+    Map<Operation, EndpointStats> run(int clients, Duration warmup, Duration duration) throws Exception {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Map<Operation, EndpointStats>>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                results.add(executor.submit(() -> runClient(measureFrom, deadline)));
+            }
+            Map<Operation, EndpointStats> combined = new EnumMap<>(Operation.class);
+            for (Future<Map<Operation, EndpointStats>> result : results) {
+                result.get().forEach((operation, stats) ->
+                        combined.computeIfAbsent(operation, o -> new EndpointStats()).merge(stats));
+            }
+            return combined;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<Operation, EndpointStats> runClient(long measureFrom, long deadline) throws InterruptedException {
+        Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]));
+            int user = random.nextInt(userIds.length);
+            HttpRequest request = request(operation, user, random);
+
+            long started = System.nanoTime();
+            int status;
+            try {
+                status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            }
+            long latency = System.nanoTime() - started;
+
+            if (started >= measureFrom) {
+                EndpointStats endpoint = stats.computeIfAbsent(operation, o -> new EndpointStats());
+                if (status < 0) {
+                    endpoint.recordIoError();
+                } else {
+                    endpoint.record(latency, status);
+                }
+            }
+        }
+        return stats;
+    }
+
+    private Operation pick(int roll) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Roll outside the mix: " + roll);
+    }
+
+    private HttpRequest request(Operation operation, int user, ThreadLocalRandom random) {
+        return switch (operation) {
+            case BALANCE -> get(user, "/api/wallet/user/balance");
+            case HISTORY -> get(user, "/api/wallet/user/transactions?size=20");
+            // El retorno de PayPal acredita el importe de la orden; cada orden es nueva
+            case DEPOSIT -> get(user, "/api/wallet/payments/success?token=" + StubPaypalServer.orderId(amount));
+            case WITHDRAW -> post(user, "/api/wallet/user/withdraw?amount=" + amount.toPlainString());
+            case TRANSFER -> {
+                int recipient = random.nextInt(userIds.length - 1);
+                if (recipient >= user) {
+                    recipient++;
+                }
+                yield post(user, "/api/wallet/user/transfer?toEmail=" + StubAuthServer.emailOf(userIds[recipient])
+                        + "&amount=" + amount.toPlainString());
+            }
+        };
+    }
+
+    HttpRequest get(int user, String path) {
+        return builder(user, path).GET().build();
+    }
+
+    /**
+     * Las operaciones que mueven dinero se envían como lo haría un cliente real: con su propia
+     * {@code Idempotency-Key}.
+     */
+    HttpRequest post(int user, String path) {
+        return builder(user, path)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private HttpRequest.Builder builder(int user, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + tokens[user]);
+    }
+}
@@ -0,0 +1,82 @@
+package com.nomcci.wallet.management.loadtest;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Parámetros de la prueba de carga, leídos de las propiedades del sistema {@code loadtest.*}
+ * (con Gradle: {@code -Ploadtest.<nombre>=<valor>}).
+ *
+ * @param warmup         tiempo de calentamiento cuyas peticiones no se miden
+ * @param duration       tiempo medido
+ * @param clients        clientes concurrentes, cada uno con una petición en curso
+ * @param users          usuarios con billetera entre los que se reparten las peticiones
+ * @param initialBalance saldo con el que se fondea cada billetera antes de la carga
+ * @param amount         importe de cada retiro y transferencia
+ * @param mix            peso relativo de cada operación
+ * @param postgresUrl    PostgreSQL externo; vacío para arrancar uno embebido
+ * @param report         fichero JSON del informe
+ */
+record LoadTestSettings(Duration warmup,
+                        Duration duration,
+                        int clients,
+                        int users,
+                        BigDecimal initialBalance,
+                        BigDecimal amount,
+                        Map<Operation, Integer> mix,
+                        String postgresUrl,
+                        String postgresUser,
+                        String postgresPassword,
+                        Path report) {
+
+    static final String DEFAULT_MIX = "balance:50,deposit:10,withdraw:10,transfer:15,history:15";
+
+    static LoadTestSettings fromSystemProperties() {
+        LoadTestSettings settings = new LoadTestSettings(
+                Duration.parse(property("warmup", "PT10S")),
+                Duration.parse(property("duration", "PT60S")),
+                Integer.parseInt(property("clients", "32")),
+                Integer.parseInt(property("users", "200")),
+                new BigDecimal(property("initial-balance", "100000.00")),
+                new BigDecimal(property("amount", "1.00")),
+                parseMix(property("mix", DEFAULT_MIX)),
+                property("postgres-url", ""),
+                property("postgres-user", "postgres"),
+                property("postgres-password", "postgres"),
+                Path.of(property("report", "build/results/loadtest/report.json")));
+        if (settings.clients() < 1 || settings.users() < 2) {
+            throw new IllegalArgumentException("The load test needs at least 1 client and 2 users.");
+        }
+        return settings;
+    }
+
+    /**
+     * Interpreta la mezcla {@code operacion:peso,...}; las operaciones omitidas no se ejecutan.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weights must not be negative: " + entry);
+            }
+            weights.put(Operation.of(parts[0]), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The mix must give some weight to at least one operation.");
+        }
+        return Collections.unmodifiableMap(weights);
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+}
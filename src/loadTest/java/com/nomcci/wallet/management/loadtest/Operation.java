@@ -0,0 +1,30 @@
+package com.nomcci.wallet.management.loadtest;
+
+import java.util.Locale;
+
+/**
+ * Operaciones que la prueba de carga reparte entre los clientes según la mezcla configurada.
+ */
+enum Operation {
+    BALANCE,
+    DEPOSIT,
+    WITHDRAW,
+    TRANSFER,
+    HISTORY;
+
+    /**
+     * Nombre de la operación en la mezcla y en el informe.
+     */
+    String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static Operation of(String key) {
+        for (Operation operation : values()) {
+            if (operation.key().equals(key.trim().toLowerCase(Locale.ROOT))) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load test operation: " + key);
+    }
+}
@@ -0,0 +1,111 @@
+package com.nomcci.wallet.management.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.nomcci.wallet.management.util.JwksUtil;
+import com.sun.net.httpserver.HttpExchange;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sustituto del servicio de autenticación: publica el JWKS de un par de claves propio, firma
+ * los tokens de los usuarios de la prueba y responde las consultas internas del directorio de
+ * usuarios. Los usuarios son sintéticos: el usuario {@code id} tiene el correo
+ * {@code user<id>@loadtest.local} y el nombre {@code User<id>}.
+ */
+final class StubAuthServer extends StubServer {
+
+    private static final String EMAIL_DOMAIN = "@loadtest.local";
+
+    private final KeyPair keyPair;
+    private final JwksUtil.JwksDocument jwks;
+    private final String kid;
+
+    private StubAuthServer(KeyPair keyPair) throws IOException {
+        super(8);
+        this.keyPair = keyPair;
+        this.jwks = JwksUtil.precompute(keyPair.getPublic());
+        this.kid = kidOf(JwksUtil.generateJWKS(keyPair.getPublic()));
+    }
+
+    static StubAuthServer start() throws IOException {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return new StubAuthServer(generator.generateKeyPair());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("RSA not available.", e);
+        }
+    }
+
+    static String emailOf(long userId) {
+        return "user" + userId + EMAIL_DOMAIN;
+    }
+
+    String jwksUrl() {
+        return baseUrl() + "/.well-known/jwks.json";
+    }
+
+    /**
+     * Firma un token de usuario que el decodificador del servicio acepta: RS256, {@code kid} del
+     * JWKS publicado y el id del usuario en {@code sub}.
+     */
+    String mintToken(long userId, Duration validity) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .setHeaderParam("kid", kid)
+                .setSubject(Long.toString(userId))
+                .setIssuer(baseUrl())
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plus(validity)))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String path) throws IOException {
+        if (path.equals("/.well-known/jwks.json")) {
+            exchange.getResponseHeaders().set("ETag", jwks.etag());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwks.body().length);
+            exchange.getResponseBody().write(jwks.body());
+        } else if (path.equals("/api/auth/internal/wallet/get-users-by-ids")) {
+            List<Long> userIds = objectMapper.readValue(exchange.getRequestBody(), new TypeReference<>() {});
+            Map<Long, String> names = new LinkedHashMap<>();
+            userIds.forEach(userId -> names.put(userId, nameOf(userId)));
+            sendJson(exchange, 200, names);
+        } else if (path.startsWith("/api/auth/internal/wallet/get-user-by-id/")) {
+            sendText(exchange, 200, nameOf(Long.parseLong(path.substring(path.lastIndexOf('/') + 1))));
+        } else if (path.equals("/api/auth/internal/wallet/get-id-by-email")) {
+            String query = exchange.getRequestURI().getQuery();
+            String email = query == null ? "" : query.substring(query.indexOf('=') + 1);
+            if (email.startsWith("user") && email.endsWith(EMAIL_DOMAIN)) {
+                sendJson(exchange, 200, Long.parseLong(email.substring(4, email.length() - EMAIL_DOMAIN.length())));
+            } else {
+                sendText(exchange, 404, "User not found");
+            }
+        } else {
+            sendText(exchange, 404, "Not found");
+        }
+    }
+
+    private static String nameOf(long userId) {
+        return "User" + userId;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String kidOf(Map<String, Object> jwks) {
+        List<Map<String, String>> keys = (List<Map<String, String>>) jwks.get("keys");
+        return keys.get(0).get("kid");
+    }
+}
@@ -0,0 +1,59 @@
+package com.nomcci.wallet.management.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sustituto de la API de PayPal: entrega access tokens, crea órdenes y da por completada
+ * cualquier orden que se consulte. El importe viaja en el id de la orden
+ * ({@code LT-<importe>-<uuid>}), así un depósito de la prueba decide cuánto acredita.
+ */
+final class StubPaypalServer extends StubServer {
+
+    private static final String ORDERS_PATH = "/v2/checkout/orders";
+    private static final BigDecimal DEFAULT_AMOUNT = new BigDecimal("10.00");
+
+    private StubPaypalServer() throws IOException {
+        super(8);
+    }
+
+    static StubPaypalServer start() throws IOException {
+        return new StubPaypalServer();
+    }
+
+    /**
+     * Id de una orden completada por el importe indicado.
+     */
+    static String orderId(BigDecimal amount) {
+        return "LT-" + amount.toPlainString() + "-" + UUID.randomUUID();
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String path) throws IOException {
+        if (path.equals("/v1/oauth2/token")) {
+            sendJson(exchange, 200, Map.of("access_token", "loadtest-access-token",
+                    "token_type", "Bearer", "expires_in", 32400));
+        } else if (path.equals(ORDERS_PATH) && exchange.getRequestMethod().equals("POST")) {
+            String id = orderId(DEFAULT_AMOUNT);
+            sendJson(exchange, 201, Map.of("id", id, "status", "CREATED", "links", List.of(
+                    Map.of("rel", "self", "href", baseUrl() + ORDERS_PATH + "/" + id),
+                    Map.of("rel", "approve", "href", baseUrl() + "/checkoutnow?token=" + id))));
+        } else if (path.startsWith(ORDERS_PATH + "/")) {
+            String id = path.substring(ORDERS_PATH.length() + 1);
+            sendJson(exchange, 200, Map.of("id", id, "status", "COMPLETED", "purchase_units", List.of(
+                    Map.of("amount", Map.of("currency_code", "USD", "value", amountOf(id).toPlainString())))));
+        } else {
+            sendText(exchange, 404, "Not found");
+        }
+    }
+
+    private static BigDecimal amountOf(String orderId) {
+        String[] parts = orderId.split("-", 3);
+        return parts.length == 3 && parts[0].equals("LT") ? new BigDecimal(parts[1]) : DEFAULT_AMOUNT;
+    }
+}
@@ -0,0 +1,70 @@
+package com.nomcci.wallet.management.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP local que sustituye a un servicio externo durante la prueba de carga.
+ * Escucha en un puerto libre de la interfaz de loopback.
+ */
+abstract class StubServer implements AutoCloseable {
+
+    protected static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    protected StubServer(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                handle(exchange, exchange.getRequestURI().getPath());
+            } catch (RuntimeException e) {
+                send(exchange, 500, "text/plain", String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Atiende una petición; las rutas desconocidas deben responder 404.
+     */
+    protected abstract void handle(HttpExchange exchange, String path) throws IOException;
+
+    String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    protected static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        send(exchange, status, "application/json", objectMapper.writeValueAsBytes(body));
+    }
+
+    protected static void sendText(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "text/plain; charset=UTF-8", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
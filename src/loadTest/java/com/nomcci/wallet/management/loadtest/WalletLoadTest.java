@@ -0,0 +1,199 @@
+package com.nomcci.wallet.management.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nomcci.wallet.management.NomcciWalletApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prueba de carga HTTP de extremo a extremo: arranca el servicio contra un PostgreSQL embebido y
+ * sustitutos locales del servicio de autenticación y de PayPal, crea y fondea las billeteras de
+ * los usuarios de la prueba y lanza la mezcla de operaciones configurada. Informa por operación
+ * del rendimiento, los percentiles de latencia y la tasa de errores, en consola y en JSON.
+ * Se ejecuta con {@code gradle loadTest}.
+ */
+public final class WalletLoadTest {
+
+    private static final long FIRST_USER_ID = 1_000_000L;
+
+    private WalletLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        PrintStream console = System.out;
+        int exitCode = 0;
+
+        try (Database database = Database.start(settings);
+             StubAuthServer auth = StubAuthServer.start();
+             StubPaypalServer paypal = StubPaypalServer.start();
+             PrintStream applicationOutput = new PrintStream(new FileOutputStream("application-stdout.log"), true)) {
+
+            // El servicio escribe trazas con System.out en cada operación; van a un fichero y no a la consola
+            System.setOut(applicationOutput);
+            try (ConfigurableApplicationContext application = startApplication(database, auth, paypal)) {
+                int port = ((ServletWebServerApplicationContext) application).getWebServer().getPort();
+                String baseUrl = "http://localhost:" + port;
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+
+                long[] userIds = new long[settings.users()];
+                String[] tokens = new String[settings.users()];
+                Duration validity = settings.warmup().plus(settings.duration()).plusHours(1);
+                for (int i = 0; i < userIds.length; i++) {
+                    userIds[i] = FIRST_USER_ID + i;
+                    tokens[i] = auth.mintToken(userIds[i], validity);
+                }
+                LoadGenerator generator = new LoadGenerator(httpClient, baseUrl, userIds, tokens,
+                        settings.amount(), settings.mix());
+
+                console.printf("Servicio en %s; preparando %d billeteras%n", baseUrl, userIds.length);
+                seedWallets(generator, httpClient, settings);
+
+                console.printf("Carga: %d clientes, calentamiento %s, ventana medida %s, mezcla %s%n",
+                        settings.clients(), settings.warmup(), settings.duration(), settings.mix());
+                Map<Operation, EndpointStats> stats = generator.run(settings.clients(), settings.warmup(), settings.duration());
+                report(stats, settings, console);
+            }
+        } catch (Exception e) {
+            e.printStackTrace(console);
+            exitCode = 1;
+        } finally {
+            System.setOut(console);
+        }
+        // Hilos no daemon de los clientes HTTP y de los servidores sustitutos
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext startApplication(Database database, StubAuthServer auth, StubPaypalServer paypal) {
+        // dev: el JWKS se descarga por http y solo se validan las fechas de los tokens
+        return new SpringApplicationBuilder(NomcciWalletApplication.class).run(
+                "--spring.profiles.active=loadtest,dev",
+                "--server.port=0",
+                "--spring.datasource.url=" + database.jdbcUrl(),
+                "--spring.datasource.username=" + database.user(),
+                "--spring.datasource.password=" + database.password(),
+                "--auth.service.url=" + auth.baseUrl() + "/api/auth",
+                "--auth.jwks.url=" + auth.jwksUrl(),
+                "--paypal.api.url=" + paypal.baseUrl());
+    }
+
+    /**
+     * Crea la billetera de cada usuario y la fondea con un depósito, en paralelo. Con un
+     * PostgreSQL externo las billeteras pueden existir de una ejecución anterior.
+     */
+    private static void seedWallets(LoadGenerator generator, HttpClient httpClient, LoadTestSettings settings) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(settings.clients(), 16));
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (int user = 0; user < settings.users(); user++) {
+                int index = user;
+                pending.add(executor.submit(() -> {
+                    int created = httpClient.send(generator.post(index, "/api/wallet/user/create"),
+                            HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (created != 201 && httpClient.send(generator.get(index, "/api/wallet/user/balance"),
+                            HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                        throw new IllegalStateException("Could not create the wallet of user " + index + ": HTTP " + created);
+                    }
+                    String orderId = StubPaypalServer.orderId(settings.initialBalance());
+                    int funded = httpClient.send(generator.get(index, "/api/wallet/payments/success?token=" + orderId),
+                            HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (funded != 200) {
+                        throw new IllegalStateException("Could not fund the wallet of user " + index + ": HTTP " + funded);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : pending) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void report(Map<Operation, EndpointStats> stats, LoadTestSettings settings, PrintStream console) throws IOException {
+        Map<String, EndpointStats.Summary> endpoints = new LinkedHashMap<>();
+        EndpointStats total = new EndpointStats();
+        stats.forEach((operation, endpoint) -> {
+            endpoints.put(operation.key(), endpoint.summarize(settings.duration()));
+            total.merge(endpoint);
+        });
+        EndpointStats.Summary overall = total.summarize(settings.duration());
+
+        console.printf("%n%-9s %9s %9s %8s %8s %8s %8s %8s %8s %6s %6s %5s %7s%n", "endpoint", "requests", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "2xx", "4xx", "5xx", "io", "errors");
+        endpoints.forEach((name, summary) -> printRow(console, name, summary));
+        printRow(console, "total", overall);
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("warmup", settings.warmup().toString());
+        configuration.put("duration", settings.duration().toString());
+        configuration.put("clients", settings.clients());
+        configuration.put("users", settings.users());
+        configuration.put("amount", settings.amount());
+        configuration.put("mix", settings.mix());
+        configuration.put("database", settings.postgresUrl().isBlank() ? "embedded" : "external");
+        document.put("settings", configuration);
+        document.put("endpoints", endpoints);
+        document.put("total", overall);
+
+        Path report = settings.report();
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), document);
+        console.printf("%nInforme: %s%n", report.toAbsolutePath());
+    }
+
+    private static void printRow(PrintStream console, String name, EndpointStats.Summary summary) {
+        console.printf("%-9s %9d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f %8d %6d %6d %5d %6.2f%%%n", name,
+                summary.requests(), summary.throughput(), summary.p50(), summary.p90(), summary.p99(),
+                summary.p999(), summary.max(), summary.status2xx(), summary.status4xx(), summary.status5xx(),
+                summary.ioErrors(), summary.errorRate() * 100);
+    }
+
+    /**
+     * Base de datos de la prueba: un PostgreSQL embebido desechable o, con
+     * {@code loadtest.postgres-url}, uno externo (el embebido no arranca si el proceso es root).
+     */
+    private record Database(EmbeddedPostgres embedded, String jdbcUrl, String user, String password) implements AutoCloseable {
+
+        static Database start(LoadTestSettings settings) throws IOException {
+            if (!settings.postgresUrl().isBlank()) {
+                return new Database(null, settings.postgresUrl(), settings.postgresUser(), settings.postgresPassword());
+            }
+            EmbeddedPostgres embedded = EmbeddedPostgres.builder().start();
+            return new Database(embedded, embedded.getJdbcUrl("postgres", "postgres"), "postgres", "postgres");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+}
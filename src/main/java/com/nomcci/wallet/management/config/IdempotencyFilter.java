@@ -0,0 +1,306 @@
+package com.nomcci.wallet.management.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nomcci.wallet.management.dto.ErrorResponse;
+import com.nomcci.wallet.management.model.IdempotencyRecord;
+import com.nomcci.wallet.management.service.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Deduplica los reintentos de los endpoints que mueven dinero. Con la cabecera
+ * {@code Idempotency-Key}, la primera petición se ejecuta y su respuesta se guarda; los reintentos
+ * con la misma clave reciben esa respuesta sin volver a ejecutar la operación. El retorno de PayPal
+ * ({@code /payments/success}) no admite cabeceras, así que usa siempre el token de la orden como
+ * clave; pasado el tiempo de retención, {@code processed_paypal_orders} sigue impidiendo acreditarla.
+ * La huella de la petición incluye el cuerpo (lotes de transferencias en JSON): una clave reutilizada
+ * con otro cuerpo se rechaza en lugar de devolver la respuesta de otra operación.
+ * La ingesta masiva de depósitos es un flujo que puede ser muy grande en ambos sentidos: no se
+ * guarda su cuerpo ni su respuesta, solo que la clave se completó, y una clave repetida se rechaza.
+ * Se registra después de la cadena de seguridad: la clave se agrupa por usuario autenticado.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String PAYPAL_SUCCESS_PATH = "/api/wallet/payments/success";
+    private static final String BULK_DEPOSITS_PATH = "/api/wallet/admin/deposits/bulk";
+
+    private static final List<String[]> IDEMPOTENT_ENDPOINTS = List.of(
+            new String[]{"POST", "/api/wallet/user/withdraw"},
+            new String[]{"POST", "/api/wallet/user/transfer"},
+            new String[]{"GET", PAYPAL_SUCCESS_PATH},
+            new String[]{"POST", "/api/wallet/admin/*/deposit"},
+            new String[]{"POST", "/api/wallet/admin/*/withdraw"},
+            new String[]{"POST", "/api/wallet/admin/*/transfer"},
+            new String[]{"POST", "/api/wallet/admin/*/transfers"},
+            new String[]{"POST", BULK_DEPOSITS_PATH});
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return IDEMPOTENT_ENDPOINTS.stream()
+                .noneMatch(endpoint -> endpoint[0].equals(request.getMethod()) && pathMatcher.match(endpoint[1], path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key != null && key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Invalid idempotency key",
+                    "Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters.");
+            return;
+        }
+        String id = scopedKey(request, key);
+        if (id == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (BULK_DEPOSITS_PATH.equals(path(request))) {
+            filterStreaming(request, response, chain, id);
+            return;
+        }
+        // El cuerpo se lee una sola vez: entra en la huella y se reproduce para el controlador
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String requestHash = requestHash(cachedRequest, cachedRequest.body());
+
+        // Reintento de una petición ya completada: se responde desde memoria
+        Optional<IdempotencyRecord> cached = idempotencyStore.findCached(id);
+        if (cached.isPresent()) {
+            replay(cached.get(), requestHash, response);
+            return;
+        }
+
+        if (!idempotencyStore.reserve(id, requestHash)) {
+            Optional<IdempotencyRecord> stored = idempotencyStore.find(id);
+            if (stored.isPresent() && stored.get().getStatusCode() != null) {
+                replay(stored.get(), requestHash, response);
+            } else if (stored.isPresent() && !stored.get().getRequestHash().equals(requestHash)) {
+                writeKeyReused(response);
+            } else {
+                writePending(stored, response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(cachedRequest, wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotencyStore.release(id);
+            throw e;
+        }
+
+        // Los errores del servidor no se guardan: la operación se revirtió y el cliente puede reintentar
+        if (wrapper.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            idempotencyStore.release(id);
+        } else {
+            String body = new String(wrapper.getContentAsByteArray(), wrapper.getCharacterEncoding());
+            idempotencyStore.complete(id, requestHash, wrapper.getStatus(), wrapper.getContentType(), body);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * Ingesta masiva: cada bloque se confirma por separado, así que la clave queda completada
+     * aunque la ingesta falle a medias y nunca se libera; repetirla volvería a acreditar los
+     * bloques ya confirmados. La huella no incluye el cuerpo, que no se lee en memoria.
+     */
+    private void filterStreaming(HttpServletRequest request, HttpServletResponse response, FilterChain chain, String id)
+            throws ServletException, IOException {
+        String requestHash = requestHash(request, new byte[0]);
+        if (idempotencyStore.findCached(id).isPresent()) {
+            writeAlreadyProcessed(response);
+            return;
+        }
+        if (!idempotencyStore.reserve(id, requestHash)) {
+            Optional<IdempotencyRecord> stored = idempotencyStore.find(id);
+            if (stored.isPresent() && stored.get().getStatusCode() != null) {
+                writeAlreadyProcessed(response);
+            } else {
+                writePending(stored, response);
+            }
+            return;
+        }
+
+        int status = HttpStatus.INTERNAL_SERVER_ERROR.value();
+        try {
+            chain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            idempotencyStore.complete(id, requestHash, status, response.getContentType(), null);
+        }
+    }
+
+    /**
+     * Clave con su ámbito: la orden de PayPal para su retorno, aunque la petición traiga cabecera
+     * (otra cabecera no debe permitir acreditar la misma orden), y el usuario autenticado para el resto.
+     */
+    private static String scopedKey(HttpServletRequest request, String key) {
+        if (PAYPAL_SUCCESS_PATH.equals(path(request))) {
+            String token = request.getParameter("token");
+            return token == null || token.isBlank() ? null : "paypal-order:" + token;
+        }
+        if (key != null && !key.isBlank()) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String principal = authentication == null ? "anonymous" : authentication.getName();
+            return "user:" + principal + ":" + key;
+        }
+        return null;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String requestHash(HttpServletRequest request, byte[] body) {
+        StringBuilder fingerprint = new StringBuilder(request.getMethod()).append(' ').append(request.getRequestURI());
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            fingerprint.append('\n').append(parameter.getKey()).append('=').append(String.join(",", parameter.getValue()));
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(fingerprint.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+
+    private void replay(IdempotencyRecord record, String requestHash, HttpServletResponse response) throws IOException {
+        if (!record.getRequestHash().equals(requestHash)) {
+            writeKeyReused(response);
+            return;
+        }
+        response.setStatus(record.getStatusCode());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getResponseBody() != null) {
+            response.getWriter().write(record.getResponseBody());
+        }
+    }
+
+    private void writePending(Optional<IdempotencyRecord> stored, HttpServletResponse response) throws IOException {
+        if (stored.isPresent() && idempotencyStore.isAbandoned(stored.get())) {
+            // La operación pudo confirmarse sin que se guardara su respuesta: no se repite
+            writeError(response, HttpStatus.CONFLICT, "Request outcome unknown",
+                    "A request with this Idempotency-Key did not finish; check the wallet before retrying with a new key.");
+        } else {
+            writeError(response, HttpStatus.CONFLICT, "Request in progress",
+                    "A request with this Idempotency-Key is still being processed.");
+        }
+    }
+
+    private void writeAlreadyProcessed(HttpServletResponse response) throws IOException {
+        writeError(response, HttpStatus.CONFLICT, "Request already processed",
+                "A bulk deposit with this Idempotency-Key was already processed; its progress is not replayed.");
+    }
+
+    private void writeKeyReused(HttpServletResponse response) throws IOException {
+        writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency key reused",
+                "Idempotency-Key was already used for a different request.");
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String error, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(objectMapper.writeValueAsString(new ErrorResponse(error, message)));
+    }
+
+    /**
+     * Petición con el cuerpo ya leído en memoria, que se puede volver a leer en el controlador.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            // Los parámetros de un formulario salen del cuerpo: se leen antes de consumirlo
+            request.getParameterMap();
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        byte[] body() {
+            return body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Asynchronous reads are not supported.");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.nomcci.wallet.management.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Envía el trabajo de solo lectura ({@code @Transactional(readOnly = true)}, y las lecturas de los
+ * repositorios de Spring Data) a un pool de réplica, y el resto al primario.
+ * Solo se activa si se configura {@code wallet.datasource.replica.url}; sin ella la aplicación
+ * usa el DataSource único de Spring Boot.
+ * La conexión real se obtiene en la primera sentencia, cuando ya se sabe si la transacción es de
+ * solo lectura. Los pools se publican como {@code hikaricp.*} con los nombres primary y replica.
+ */
+@Configuration
+@ConditionalOnProperty("wallet.datasource.replica.url")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("wallet.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${wallet.datasource.replica.url}") String url,
+            @Value("${wallet.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${wallet.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${wallet.datasource.replica.max-staleness:}") Duration maxStaleness,
+            MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, maxStaleness);
+        Gauge.builder("wallet.datasource.replica.lag", routingDataSource, ReplicaRoutingDataSource::getLagSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        return routingDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,97 @@
+package com.nomcci.wallet.management.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Destino de las conexiones de solo lectura: la réplica mientras su retraso de replicación no
+ * supere el máximo configurado, y el primario en caso contrario o si la réplica no responde.
+ * Sin máximo configurado, las lecturas van siempre a la réplica.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    // Una réplica al día (o una base que no es réplica) no tiene retraso aunque no haya escrituras recientes
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final Duration maxStaleness;
+
+    private volatile boolean replicaUsable = true;
+    private volatile double lagSeconds;
+
+    /**
+     * @param primary pool del primario
+     * @param replica pool de la réplica
+     * @param maxStaleness retraso máximo tolerado, o null para no comprobarlo
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxStaleness) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.maxStaleness = maxStaleness;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return replicaUsable ? REPLICA : PRIMARY;
+    }
+
+    /**
+     * Mide el retraso de la réplica y decide si las lecturas pueden seguir yendo a ella.
+     */
+    @Scheduled(fixedDelayString = "${wallet.datasource.replica.lag-check-interval:PT1S}",
+            initialDelayString = "${wallet.datasource.replica.lag-check-interval:PT1S}")
+    public void checkReplicationLag() {
+        if (maxStaleness == null) {
+            return;
+        }
+        boolean usable;
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lagSeconds = lag == null ? 0 : lag;
+            usable = lagSeconds * 1000 <= maxStaleness.toMillis();
+        } catch (RuntimeException ex) {
+            logger.debug("No se pudo medir el retraso de la réplica", ex);
+            lagSeconds = Double.NaN;
+            usable = false;
+        }
+        if (usable != replicaUsable) {
+            logger.warn(usable
+                    ? "La réplica vuelve a atender las lecturas (retraso {} s)"
+                    : "Lecturas redirigidas al primario: retraso de la réplica {} s", lagSeconds);
+        }
+        replicaUsable = usable;
+    }
+
+    /**
+     * Indica si las lecturas se están enviando a la réplica.
+     */
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /**
+     * Último retraso medido en segundos (NaN si la réplica no respondió).
+     */
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+}
@@ -1,14 +1,84 @@
 package com.nomcci.wallet.management.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente HTTP compartido para las llamadas salientes (servicio de autenticación y PayPal).
+ * Usa un pool de conexiones persistentes con límites por ruta y tiempos de espera acotados,
+ * de modo que un servicio lento no retenga hilos de Tomcat indefinidamente.
+ * La latencia por host queda en {@code http.client.requests} (etiqueta {@code client.name})
+ * y la ocupación del pool en {@code httpcomponents.httpclient.pool.*}.
+ */
 @Configuration
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public PoolingHttpClientConnectionManager httpConnectionManager(
+            @Value("${wallet.http-client.max-total:100}") int maxTotal,
+            @Value("${wallet.http-client.max-per-route:20}") int maxPerRoute,
+            @Value("${wallet.http-client.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${wallet.http-client.read-timeout:PT5S}") Duration readTimeout,
+            @Value("${wallet.http-client.time-to-live:PT5M}") Duration timeToLive,
+            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(timeToLive))
+                        // Revalida las conexiones que llevan un rato sin usarse antes de reutilizarlas
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "outbound").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(
+            PoolingHttpClientConnectionManager httpConnectionManager,
+            @Value("${wallet.http-client.read-timeout:PT5S}") Duration readTimeout,
+            @Value("${wallet.http-client.connection-request-timeout:PT1S}") Duration connectionRequestTimeout,
+            @Value("${wallet.http-client.keep-alive:PT30S}") Duration keepAlive) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // Espera máxima por una conexión libre del pool
+                        .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        // Keep-alive cuando el servidor no lo indica
+                        .setDefaultKeepAlive(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        // El builder de Spring Boot registra las métricas http.client.requests
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
     }
 }
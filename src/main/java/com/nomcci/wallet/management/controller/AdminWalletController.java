@@ -1,18 +1,39 @@
 package com.nomcci.wallet.management.controller;
 
-import com.nomcci.wallet.management.dto.TransactionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nomcci.wallet.management.dto.ArchivalReportDTO;
+import com.nomcci.wallet.management.dto.BatchTransferRequestDTO;
+import com.nomcci.wallet.management.dto.BatchTransferResultDTO;
+import com.nomcci.wallet.management.dto.BulkDepositErrorDTO;
+import com.nomcci.wallet.management.dto.BulkDepositReportDTO;
+import com.nomcci.wallet.management.dto.TransactionHistoryPageDTO;
+import com.nomcci.wallet.management.dto.TransactionTypeSummaryDTO;
 import com.nomcci.wallet.management.model.Transaction;
 import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.service.ArchivalService;
+import com.nomcci.wallet.management.service.BulkDepositService;
+import com.nomcci.wallet.management.service.LedgerExportService;
 import com.nomcci.wallet.management.service.WalletService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.websocket.server.PathParam;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/wallet/admin")
@@ -20,6 +41,10 @@ import java.time.Instant;
 public class AdminWalletController {
 
     private final WalletService walletService;
+    private final ArchivalService archivalService;
+    private final BulkDepositService bulkDepositService;
+    private final LedgerExportService ledgerExportService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Deposita dinero en la billetera.
@@ -68,24 +93,132 @@ public class AdminWalletController {
     }
 
     /**
-     * Obtiene el historial de transacciones de una billetera.
+     * Transfiere dinero de una billetera a varias en una sola operación atómica.
+     *
+     * @param fromWalletId ID de la billetera de origen.
+     * @param request      Destino e importe de cada tramo.
+     * @return Movimientos registrados por tramo y saldo final de la billetera de origen.
+     */
+    @PostMapping("/{fromWalletId}/transfers")
+    public ResponseEntity<BatchTransferResultDTO> transferBatch(
+            @PathVariable Long fromWalletId,
+            @RequestBody BatchTransferRequestDTO request) {
+        return ResponseEntity.ok(walletService.transferBatch(fromWalletId, request.getLegs()));
+    }
+
+    /**
+     * Aplica depósitos masivos leídos del cuerpo a medida que llega, en CSV ({@code walletId,amount})
+     * o NDJSON. La respuesta es NDJSON: una línea {@code error} por cada línea rechazada, una línea
+     * {@code progress} por bloque confirmado y una línea {@code summary} final.
+     *
+     * @param request  Petición con el cuerpo CSV o NDJSON.
+     * @param response Respuesta donde se escribe el avance.
+     */
+    @PostMapping(value = "/deposits/bulk", consumes = {"text/csv", "application/x-ndjson"}, produces = "application/x-ndjson")
+    public void bulkDeposit(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BulkDepositService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? BulkDepositService.Format.CSV
+                : BulkDepositService.Format.NDJSON;
+        Charset charset = request.getCharacterEncoding() != null
+                ? Charset.forName(request.getCharacterEncoding())
+                : StandardCharsets.UTF_8;
+
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        PrintWriter out = response.getWriter();
+
+        Reader body = new InputStreamReader(request.getInputStream(), charset);
+        BulkDepositReportDTO summary = bulkDepositService.ingest(body, format, new BulkDepositService.Listener() {
+            @Override
+            public void onProgress(BulkDepositReportDTO progress) {
+                writeLine(out, "progress", progress);
+                out.flush();
+            }
+
+            @Override
+            public void onRejected(BulkDepositErrorDTO error) {
+                writeLine(out, "error", error);
+            }
+        });
+        writeLine(out, "summary", summary);
+        out.flush();
+    }
+
+    private void writeLine(PrintWriter out, String kind, Object payload) {
+        try {
+            out.write(objectMapper.writeValueAsString(Map.of(kind, payload)));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write bulk deposit progress.", e);
+        }
+    }
+
+    /**
+     * Obtiene el historial de transacciones de una billetera (activas y archivadas).
      *
-     * @param page           Número de página.
      * @param size           Tamaño de la página.
-     * @param sortBy         Campo por el cual ordenar.
+     * @param cursor         Cursor devuelto por la página anterior; se omite en la primera página.
      * @param startTimestamp Inicio del rango de fechas.
      * @param endTimestamp   Fin del rango de fechas.
-     * @return Historial paginado de transacciones.
+     * @return Página de transacciones y cursor de la siguiente página.
      */
     @GetMapping("/{walletId}/transactions")
-    public ResponseEntity<PageImpl<TransactionDTO>> getTransactionHistory(
+    public ResponseEntity<TransactionHistoryPageDTO> getTransactionHistory(
             @PathVariable Long walletId,
-            @RequestParam int page,
             @RequestParam int size,
-            @RequestParam(defaultValue = "timestamp") String sortBy,
+            @RequestParam(required = false) String cursor,
             @RequestParam(required = false) Instant startTimestamp,
             @RequestParam(required = false) Instant endTimestamp ) {
-        PageImpl<TransactionDTO> transactions = walletService.getTransactionHistory(walletId, page, size, sortBy, startTimestamp, endTimestamp);
+        TransactionHistoryPageDTO transactions = walletService.getTransactionHistory(walletId, size, cursor, startTimestamp, endTimestamp);
         return ResponseEntity.ok(transactions);
     }
+
+    /**
+     * Exporta el historial completo de una billetera (activas y archivadas) en orden cronológico,
+     * escribiendo las filas a medida que se leen de la base de datos.
+     *
+     * @param walletId       ID de la billetera.
+     * @param format         {@code ndjson} (por defecto) o {@code csv}.
+     * @param startTimestamp Inicio del rango de fechas.
+     * @param endTimestamp   Fin del rango de fechas.
+     * @return Cuerpo que se escribe de forma asíncrona.
+     */
+    @GetMapping("/{walletId}/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactionHistory(
+            @PathVariable Long walletId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Instant startTimestamp,
+            @RequestParam(required = false) Instant endTimestamp) {
+        LedgerExportService.Format exportFormat = LedgerExportService.Format.of(format);
+        ledgerExportService.requireWallet(walletId);
+
+        boolean csv = exportFormat == LedgerExportService.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType("text/csv;charset=UTF-8") : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"wallet-" + walletId + "-transactions." + (csv ? "csv" : "ndjson") + "\"")
+                .body(output -> ledgerExportService.export(walletId, startTimestamp, endTimestamp, exportFormat, output));
+    }
+
+    /**
+     * Obtiene el número de transacciones y el importe total por tipo de una billetera.
+     *
+     * @param walletId ID de la billetera.
+     * @return Resumen por tipo de transacción, calculado en la base de datos.
+     */
+    @GetMapping("/{walletId}/transaction-types")
+    public ResponseEntity<List<TransactionTypeSummaryDTO>> getTransactionTypeSummary(@PathVariable Long walletId) {
+        return ResponseEntity.ok(walletService.getTransactionTypeSummary(walletId));
+    }
+
+    /**
+     * Ejecuta el archivado de transacciones antiguas sin esperar a la ejecución programada.
+     *
+     * @return Resumen del archivado con el rendimiento en filas por segundo.
+     */
+    @PostMapping("/archival/run")
+    public ResponseEntity<ArchivalReportDTO> runArchival() {
+        return ResponseEntity.ok(archivalService.archiveAll());
+    }
 }
@@ -1,15 +1,50 @@
 package com.nomcci.wallet.management.controller;
 
 import com.nomcci.wallet.management.util.JwksUtil;
+import com.nomcci.wallet.management.util.JwksUtil.JwksDocument;
+import com.nomcci.wallet.management.util.RsaKeyUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Map;
+import java.security.PublicKey;
+import java.time.Duration;
 
+/**
+ * Publica la llave pública del servicio. El documento se construye una vez al cargar la llave;
+ * las peticiones con {@code If-None-Match} vigente reciben un 304 sin cuerpo.
+ */
 @RestController
 public class JwksController {
-    @GetMapping("/.well-known/jwks.json")
-    public Map<String, Object> getJWKS() {
-        return JwksUtil.generateJWKS();
+
+    private final JwksDocument jwks;
+    private final CacheControl cacheControl;
+
+    @Autowired
+    public JwksController(@Value("${wallet.jwks.max-age:PT5M}") Duration maxAge) {
+        this(loadPublicKey(), maxAge);
+    }
+
+    JwksController(PublicKey publicKey, Duration maxAge) {
+        this.jwks = JwksUtil.precompute(publicKey);
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getJWKS() {
+        // Spring responde 304 cuando el ETag coincide con If-None-Match
+        return ResponseEntity.ok()
+                .eTag(jwks.etag())
+                .cacheControl(cacheControl)
+                .body(jwks.body());
+    }
+
+    private static PublicKey loadPublicKey() {
+        RsaKeyUtil.generateKeyPair(); // Genera las claves si no existen
+        return RsaKeyUtil.loadPublicKey();
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,11 @@
 package com.nomcci.wallet.management.controller;
 
 import com.nomcci.wallet.management.dto.PaymentVerificationResponseDTO;
+import com.nomcci.wallet.management.exception.PaymentAlreadyProcessedException;
 import com.nomcci.wallet.management.service.PaypalService;
 import com.nomcci.wallet.management.service.WalletService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +17,8 @@ import java.math.BigDecimal;
 @RequestMapping("/api/wallet/payments")
 public class PaymentController {
 
+    private static final Logger logger = LoggerFactory.getLogger(PaymentController.class);
+
     @Autowired
     private PaypalService paypalService;
 
@@ -48,14 +53,17 @@ public class PaymentController {
         try {
 
             PaymentVerificationResponseDTO paymentStatus = paypalService.verifyPayment(token);
-            System.out.println("El pago se ha procesado: "+paymentStatus);
+            logger.debug("El pago se ha procesado: {}", paymentStatus);
             return switch (paymentStatus.getStatus()) {
                 case "COMPLETED" ->
-                        ResponseEntity.ok("Pago completado exitosamente. Depositado: "+ walletService.deposit(paymentStatus.getAmount()));
+                        ResponseEntity.ok("Pago completado exitosamente. Depositado: "+ walletService.depositPaypalOrder(token, paymentStatus.getAmount()));
                 case "APPROVED" -> ResponseEntity.ok("El pago fue aprobado, pero no necesita captura adicional.");
                 default -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body("El pago no se completó correctamente. Estado recibido: " + paymentStatus);
             };
+        } catch (PaymentAlreadyProcessedException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("La orden de PayPal ya fue acreditada.");
         } catch (Exception e) {
             // Registrar el error para depuración
             e.printStackTrace();
@@ -1,14 +1,13 @@
 package com.nomcci.wallet.management.controller;
 
 import com.nomcci.wallet.management.dto.ErrorResponse;
-import com.nomcci.wallet.management.dto.TransactionDTO;
+import com.nomcci.wallet.management.dto.TransactionHistoryPageDTO;
 import com.nomcci.wallet.management.exception.InsufficientFundsException;
 import com.nomcci.wallet.management.exception.WalletNotFoundException;
 import com.nomcci.wallet.management.model.Transaction;
 import com.nomcci.wallet.management.model.Wallet;
 import com.nomcci.wallet.management.service.WalletService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -100,23 +99,21 @@ public class UserWalletController {
     }
 
     /**
-     * Obtiene el historial de transacciones de una billetera.
+     * Obtiene el historial de transacciones de la billetera del usuario (activas y archivadas).
      *
-     * @param page           Número de página.
      * @param size           Tamaño de la página.
-     * @param sortBy         Campo por el cual ordenar.
+     * @param cursor         Cursor devuelto por la página anterior; se omite en la primera página.
      * @param startTimestamp Inicio del rango de fechas.
      * @param endTimestamp   Fin del rango de fechas.
-     * @return Historial paginado de transacciones.
+     * @return Página de transacciones y cursor de la siguiente página.
      */
     @GetMapping("/transactions")
-    public ResponseEntity<Page<TransactionDTO>> getTransactionHistory(
-            @RequestParam int page,
+    public ResponseEntity<TransactionHistoryPageDTO> getTransactionHistory(
             @RequestParam int size,
-            @RequestParam(defaultValue = "timestamp") String sortBy,
+            @RequestParam(required = false) String cursor,
             @RequestParam(required = false) Instant startTimestamp,
             @RequestParam(required = false) Instant endTimestamp ) {
-        Page<TransactionDTO> transactions = walletService.getTransactionHistory(page, size, sortBy, startTimestamp, endTimestamp);
+        TransactionHistoryPageDTO transactions = walletService.getTransactionHistory(size, cursor, startTimestamp, endTimestamp);
         return ResponseEntity.ok(transactions);
     }
 
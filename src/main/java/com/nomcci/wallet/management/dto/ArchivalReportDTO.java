@@ -0,0 +1,26 @@
+package com.nomcci.wallet.management.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@ToString
+public class ArchivalReportDTO {
+    private Instant cutoffDate;
+    private long walletsScanned;
+    private long rowsArchived;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    public ArchivalReportDTO(Instant cutoffDate, long walletsScanned, long rowsArchived, long elapsedMillis) {
+        this.cutoffDate = cutoffDate;
+        this.walletsScanned = walletsScanned;
+        this.rowsArchived = rowsArchived;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis > 0 ? rowsArchived * 1000.0 / elapsedMillis : rowsArchived;
+    }
+}
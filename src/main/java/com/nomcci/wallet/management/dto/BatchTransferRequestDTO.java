@@ -0,0 +1,16 @@
+package com.nomcci.wallet.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequestDTO {
+    private List<TransferLegDTO> legs;
+}
@@ -0,0 +1,23 @@
+package com.nomcci.wallet.management.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchTransferResultDTO {
+    private Long fromWalletId;
+    private BigDecimal totalAmount;
+    private BigDecimal sourceBalance; // saldo de origen tras el lote
+    private List<TransferLegResultDTO> legs;
+
+    public BatchTransferResultDTO(Long fromWalletId, BigDecimal totalAmount, BigDecimal sourceBalance, List<TransferLegResultDTO> legs) {
+        this.fromWalletId = fromWalletId;
+        this.totalAmount = totalAmount;
+        this.sourceBalance = sourceBalance;
+        this.legs = legs;
+    }
+}
@@ -0,0 +1,16 @@
+package com.nomcci.wallet.management.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BulkDepositErrorDTO {
+    private long line; // número de línea en el cuerpo, empezando en 1
+    private String message;
+
+    public BulkDepositErrorDTO(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+}
@@ -0,0 +1,28 @@
+package com.nomcci.wallet.management.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@ToString
+public class BulkDepositReportDTO {
+    private long linesRead;
+    private long depositsApplied;
+    private long linesRejected;
+    private BigDecimal totalAmount;
+    private long elapsedMillis;
+    private double depositsPerSecond;
+
+    public BulkDepositReportDTO(long linesRead, long depositsApplied, long linesRejected, BigDecimal totalAmount, long elapsedMillis) {
+        this.linesRead = linesRead;
+        this.depositsApplied = depositsApplied;
+        this.linesRejected = linesRejected;
+        this.totalAmount = totalAmount;
+        this.elapsedMillis = elapsedMillis;
+        this.depositsPerSecond = elapsedMillis > 0 ? depositsApplied * 1000.0 / elapsedMillis : depositsApplied;
+    }
+}
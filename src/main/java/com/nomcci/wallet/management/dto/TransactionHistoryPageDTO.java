@@ -0,0 +1,18 @@
+package com.nomcci.wallet.management.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class TransactionHistoryPageDTO {
+    private List<TransactionDTO> content;
+    private String nextCursor; // null cuando no hay más páginas
+
+    public TransactionHistoryPageDTO(List<TransactionDTO> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,22 @@
+package com.nomcci.wallet.management.dto;
+
+import com.nomcci.wallet.management.model.TransactionType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+public class TransactionTypeSummaryDTO {
+    private TransactionType transactionType;
+    private long count;
+    private BigDecimal totalAmount;
+
+    // Constructor usado por las consultas de agregación
+    public TransactionTypeSummaryDTO(TransactionType transactionType, long count, BigDecimal totalAmount) {
+        this.transactionType = transactionType;
+        this.count = count;
+        this.totalAmount = totalAmount;
+    }
+}
@@ -0,0 +1,17 @@
+package com.nomcci.wallet.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferLegDTO {
+    private Long toWalletId;
+    private BigDecimal amount;
+}
@@ -0,0 +1,24 @@
+package com.nomcci.wallet.management.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+public class TransferLegResultDTO {
+    private int index; // posición del tramo en la solicitud
+    private Long toWalletId;
+    private BigDecimal amount;
+    private Long debitTransactionId;
+    private Long creditTransactionId;
+
+    public TransferLegResultDTO(int index, Long toWalletId, BigDecimal amount, Long debitTransactionId, Long creditTransactionId) {
+        this.index = index;
+        this.toWalletId = toWalletId;
+        this.amount = amount;
+        this.debitTransactionId = debitTransactionId;
+        this.creditTransactionId = creditTransactionId;
+    }
+}
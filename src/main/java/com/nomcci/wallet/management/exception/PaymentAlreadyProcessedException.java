@@ -0,0 +1,7 @@
+package com.nomcci.wallet.management.exception;
+
+public class PaymentAlreadyProcessedException extends RuntimeException {
+    public PaymentAlreadyProcessedException(String message) {
+        super(message);
+    }
+}
@@ -12,10 +12,11 @@ import java.time.Instant;
 public class ArchivedTransaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "archivedTransactionIdGenerator")
+    @SequenceGenerator(name = "archivedTransactionIdGenerator", sequenceName = "archived_transactions_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "wallet_id", nullable = false)
     private Wallet wallet;
 
@@ -26,7 +27,7 @@ public class ArchivedTransaction {
     @Column(nullable = false)
     private TransactionType transactionType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "destination_wallet_id")
     private Wallet destinationWallet;
 
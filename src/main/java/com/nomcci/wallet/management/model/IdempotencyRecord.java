@@ -0,0 +1,35 @@
+package com.nomcci.wallet.management.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Respuesta guardada de una petición con clave de idempotencia.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes =
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+@Data
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 300)
+    private String id; // Ámbito (usuario u orden de PayPal) y clave enviada por el cliente
+
+    @Column(nullable = false, length = 64)
+    private String requestHash; // SHA-256 del método, la ruta y los parámetros de la petición original
+
+    private Integer statusCode; // Null mientras la petición original está en curso
+
+    private String contentType;
+
+    @Column(columnDefinition = "text")
+    private String responseBody;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant completedAt;
+}
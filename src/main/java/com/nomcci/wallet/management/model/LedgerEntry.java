@@ -0,0 +1,22 @@
+package com.nomcci.wallet.management.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Fila de la vista unificada del historial (transacciones activas y archivadas).
+ * No es una entidad: se construye directamente a partir del resultado de la consulta.
+ */
+@Getter
+@AllArgsConstructor
+public class LedgerEntry {
+    private LedgerSource source;
+    private Long id;
+    private Instant timestamp;
+    private TransactionType transactionType;
+    private BigDecimal amount;
+    private Long counterpartyUserId; // Puede ser null para DEPOSIT y WITHDRAWAL
+}
@@ -0,0 +1,10 @@
+package com.nomcci.wallet.management.model;
+
+/**
+ * Tabla de origen de una fila del historial. El orden de declaración define el desempate
+ * entre filas con el mismo timestamp: las activas se listan antes que las archivadas.
+ */
+public enum LedgerSource {
+    ARCHIVED,
+    ACTIVE
+}
@@ -0,0 +1,28 @@
+package com.nomcci.wallet.management.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Orden de PayPal ya acreditada en una billetera.
+ */
+@Entity
+@Table(name = "processed_paypal_orders")
+@Data
+public class ProcessedPaypalOrder {
+
+    @Id
+    private String orderId; // Token de la orden devuelto por PayPal
+
+    @Column(nullable = false)
+    private Long walletId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private Instant processedAt;
+}
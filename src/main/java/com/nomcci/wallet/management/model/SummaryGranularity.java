@@ -0,0 +1,6 @@
+package com.nomcci.wallet.management.model;
+
+public enum SummaryGranularity {
+    MONTH,
+    YEAR
+}
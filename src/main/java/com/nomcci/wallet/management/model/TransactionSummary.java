@@ -7,18 +7,27 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "transaction_summaries")
+@Table(name = "transaction_summaries", uniqueConstraints =
+        @UniqueConstraint(name = "uk_transaction_summaries_wallet_period", columnNames = {"wallet_id", "period"}))
 @Data
 public class TransactionSummary {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactionSummaryIdGenerator")
+    @SequenceGenerator(name = "transactionSummaryIdGenerator", sequenceName = "transaction_summaries_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "wallet_id", nullable = false)
     private Wallet wallet;
 
+    @Column(length = 7)
+    private String period; // Periodo resumido: "yyyy-MM" (mensual) o "yyyy" (anual)
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 5)
+    private SummaryGranularity granularity;
+
     @Column(nullable = false)
     private BigDecimal totalAmount; // Monto total del período resumido
 
@@ -10,7 +10,8 @@ import java.math.BigDecimal;
 public class Wallet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "walletIdGenerator")
+    @SequenceGenerator(name = "walletIdGenerator", sequenceName = "wallets_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -0,0 +1,98 @@
+package com.nomcci.wallet.management.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gestión de las particiones mensuales de {@code archived_transactions} (PostgreSQL).
+ * Cada partición cubre un mes UTC del timestamp original de la transacción y se llama
+ * {@code archived_transactions_pAAAA_MM}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ArchivePartitionRepository {
+
+    private static final String PARENT = "archived_transactions";
+    private static final String DEFAULT_PARTITION = "archived_transactions_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("archived_transactions_p(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Meses que ya tienen partición propia, en orden ascendente.
+     */
+    public List<YearMonth> findPartitionMonths() {
+        return jdbcTemplate.queryForList("""
+                        SELECT c.relname
+                          FROM pg_inherits i
+                          JOIN pg_class c ON c.oid = i.inhrelid
+                         WHERE i.inhparent = 'archived_transactions'::regclass
+                        """, String.class)
+                .stream()
+                .map(ArchivePartitionRepository::parseMonth)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Crea la partición del mes. Las filas de ese mes que hubieran caído en la partición por
+     * defecto se trasladan a la nueva antes de adjuntarla. Debe ejecutarse dentro de una transacción.
+     *
+     * @param month mes de la partición
+     */
+    public void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        String from = lowerBound(month);
+        String to = lowerBound(month.plusMonths(1));
+
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + PARENT + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                " WHERE timestamp >= '" + from + "' AND timestamp < '" + to + "' RETURNING *) " +
+                "INSERT INTO " + partition + " SELECT * FROM moved");
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " ATTACH PARTITION " + partition +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    /**
+     * Separa la partición del mes de la tabla de archivo. Solo modifica el catálogo: las filas
+     * dejan de ser visibles en el historial sin recorrerlas ni borrarlas una a una.
+     *
+     * @param month mes de la partición
+     */
+    public void detachPartition(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partitionName(month));
+    }
+
+    /**
+     * Elimina una partición ya separada.
+     *
+     * @param month mes de la partición
+     */
+    public void dropDetachedPartition(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(month));
+    }
+
+    static String partitionName(YearMonth month) {
+        return "%s_p%04d_%02d".formatted(PARENT, month.getYear(), month.getMonthValue());
+    }
+
+    private static String lowerBound(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+
+    private static YearMonth parseMonth(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
@@ -1,15 +1,20 @@
 package com.nomcci.wallet.management.repository;
 
+import com.nomcci.wallet.management.dto.TransactionTypeSummaryDTO;
 import com.nomcci.wallet.management.model.ArchivedTransaction;
-import com.nomcci.wallet.management.model.Wallet;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.Instant;
+import java.util.List;
 
 @Repository
 public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
-    Page<ArchivedTransaction> findByWalletAndTimestampBetween(Wallet wallet, Instant startTimestamp, Instant endTimestamp, Pageable pageable);
+    /**
+     * Número de transacciones archivadas e importe total por tipo de transacción.
+     */
+    @Query("SELECT new com.nomcci.wallet.management.dto.TransactionTypeSummaryDTO(a.transactionType, COUNT(a), COALESCE(SUM(a.amount), 0)) " +
+            "FROM ArchivedTransaction a WHERE a.wallet.id = :walletId GROUP BY a.transactionType")
+    List<TransactionTypeSummaryDTO> summarizeByTransactionType(@Param("walletId") Long walletId);
 }
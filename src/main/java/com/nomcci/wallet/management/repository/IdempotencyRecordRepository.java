@@ -0,0 +1,45 @@
+package com.nomcci.wallet.management.repository;
+
+import com.nomcci.wallet.management.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reserva la clave para una petición en curso. Falla con una violación de clave primaria
+     * si otra petición ya la reservó, sin leer la fila antes.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (id, request_hash, created_at) VALUES (:id, :requestHash, :createdAt)",
+            nativeQuery = true)
+    int insertPending(@Param("id") String id, @Param("requestHash") String requestHash, @Param("createdAt") Instant createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.contentType = :contentType, " +
+            "r.responseBody = :responseBody, r.completedAt = :completedAt WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("statusCode") int statusCode, @Param("contentType") String contentType,
+                 @Param("responseBody") String responseBody, @Param("completedAt") Instant completedAt);
+
+    /**
+     * Libera una reserva sin respuesta para que el cliente pueda reintentar.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.statusCode IS NULL")
+    int deletePending(@Param("id") String id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,85 @@
+package com.nomcci.wallet.management.repository;
+
+import com.nomcci.wallet.management.model.SummaryGranularity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Movimiento del libro de transacciones a la tabla de archivo con sentencias sobre conjuntos
+ * (PostgreSQL). Las filas no pasan por la aplicación: la memoria usada y el número de
+ * sentencias por lote no dependen de cuántas filas se archiven.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerArchiveRepository {
+
+    /*
+     * Una sola sentencia por lote: el DELETE ... RETURNING alimenta la copia al archivo y el
+     * resumen mensual (upsert sobre la clave billetera-periodo). Las filas bloqueadas por otra
+     * instancia del proceso se saltan y quedan para la siguiente pasada.
+     */
+    static final String MOVE_BATCH = """
+            WITH moved AS (
+                DELETE FROM transactions t
+                 WHERE t.id IN (SELECT o.id FROM transactions o
+                                 WHERE o.wallet_id = :walletId AND o.timestamp < :cutoffDate
+                                 ORDER BY o.id
+                                 LIMIT :limit
+                                 FOR UPDATE SKIP LOCKED)
+                RETURNING t.wallet_id, t.destination_wallet_id, t.amount, t.transaction_type, t.timestamp
+            ), archived AS (
+                INSERT INTO archived_transactions
+                       (id, wallet_id, destination_wallet_id, amount, transaction_type, timestamp, archived_at)
+                SELECT nextval('archived_transactions_seq'), m.wallet_id, m.destination_wallet_id, m.amount,
+                       m.transaction_type, m.timestamp, :archivedAt
+                  FROM moved m
+            ), summarized AS (
+                INSERT INTO transaction_summaries
+                       (id, wallet_id, period, granularity, total_amount, start_date, end_date)
+                SELECT nextval('transaction_summaries_seq'), p.wallet_id, p.period, :granularity,
+                       p.total_amount, p.start_date, p.end_date
+                  FROM (SELECT m.wallet_id, to_char(m.timestamp AT TIME ZONE 'UTC', 'YYYY-MM') AS period,
+                               SUM(m.amount) AS total_amount, MIN(m.timestamp) AS start_date, MAX(m.timestamp) AS end_date
+                          FROM moved m
+                         GROUP BY m.wallet_id, to_char(m.timestamp AT TIME ZONE 'UTC', 'YYYY-MM')) p
+                ON CONFLICT (wallet_id, period) DO UPDATE
+                   SET total_amount = transaction_summaries.total_amount + EXCLUDED.total_amount,
+                       start_date = LEAST(transaction_summaries.start_date, EXCLUDED.start_date),
+                       end_date = GREATEST(transaction_summaries.end_date, EXCLUDED.end_date)
+            )
+            SELECT COUNT(*) FROM moved
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Archiva un lote de transacciones anteriores a la fecha de corte y acumula su resumen mensual.
+     *
+     * @param walletId id de la billetera
+     * @param cutoffDate fecha de corte
+     * @param limit tamaño máximo del lote
+     * @param archivedAt marca de tiempo del archivado
+     * @return número de filas movidas
+     */
+    public int moveBatch(Long walletId, Instant cutoffDate, int limit, Instant archivedAt) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("walletId", walletId)
+                .addValue("cutoffDate", toOffset(cutoffDate))
+                .addValue("limit", limit)
+                .addValue("archivedAt", toOffset(archivedAt))
+                .addValue("granularity", SummaryGranularity.MONTH.name());
+
+        Integer moved = jdbcTemplate.queryForObject(MOVE_BATCH, params, Integer.class);
+        return moved == null ? 0 : moved;
+    }
+
+    private static OffsetDateTime toOffset(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,152 @@
+package com.nomcci.wallet.management.repository;
+
+import com.nomcci.wallet.management.model.LedgerEntry;
+import com.nomcci.wallet.management.model.LedgerSource;
+import com.nomcci.wallet.management.model.TransactionType;
+import com.nomcci.wallet.management.util.LedgerCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Vista unificada del historial de una billetera sobre {@code transactions} y
+ * {@code archived_transactions}, paginada por clave (timestamp, origen, id).
+ * Cada rama se limita por separado sobre el índice (wallet_id, timestamp, id) y el cursor se
+ * compara como fila, de modo que PostgreSQL lo usa como límite del recorrido del índice y el
+ * coste de una página no depende de lo profundo que se encuentre el cliente.
+ * El filtro por timestamp de la rama de archivo permite a PostgreSQL descartar las
+ * particiones mensuales fuera del rango pedido.
+ * La exportación recorre el mismo rango en orden ascendente con un cursor del servidor.
+ */
+@Repository
+public class LedgerHistoryRepository {
+
+    private static final String BRANCH = """
+            (SELECT %1$d AS source, t.id, t.timestamp, t.transaction_type, t.amount, d.user_id AS counterparty_user_id
+               FROM %2$s t
+               LEFT JOIN wallets d ON d.id = t.destination_wallet_id
+              WHERE t.wallet_id = :walletId
+                AND t.timestamp >= :start AND t.timestamp <= :end
+                AND (t.timestamp, t.id) < (:cursorTimestamp, :%3$s)
+              ORDER BY t.timestamp DESC, t.id DESC
+              LIMIT :limit)
+            """;
+
+    static final String PAGE_QUERY =
+            "SELECT * FROM (" +
+                    BRANCH.formatted(LedgerSource.ACTIVE.ordinal(), "transactions", "activeIdBound") +
+                    " UNION ALL " +
+                    BRANCH.formatted(LedgerSource.ARCHIVED.ordinal(), "archived_transactions", "archivedIdBound") +
+                    ") h ORDER BY h.timestamp DESC, h.source DESC, h.id DESC LIMIT :limit";
+
+    private static final String EXPORT_BRANCH = """
+            SELECT %1$d AS source, t.id, t.timestamp, t.transaction_type, t.amount, d.user_id AS counterparty_user_id
+              FROM %2$s t
+              LEFT JOIN wallets d ON d.id = t.destination_wallet_id
+             WHERE t.wallet_id = :walletId
+               AND t.timestamp >= :start AND t.timestamp <= :end
+            """;
+
+    // Mismo orden total que la paginación, pero ascendente; el filtro por rango poda las particiones del archivo
+    static final String EXPORT_QUERY =
+            EXPORT_BRANCH.formatted(LedgerSource.ACTIVE.ordinal(), "transactions") +
+                    " UNION ALL " +
+                    EXPORT_BRANCH.formatted(LedgerSource.ARCHIVED.ordinal(), "archived_transactions") +
+                    " ORDER BY timestamp, source, id";
+
+    private static final RowMapper<LedgerEntry> ROW_MAPPER = (rs, rowNum) -> new LedgerEntry(
+            LedgerSource.values()[rs.getInt("source")],
+            rs.getLong("id"),
+            rs.getObject("timestamp", OffsetDateTime.class).toInstant(),
+            TransactionType.valueOf(rs.getString("transaction_type")),
+            rs.getBigDecimal("amount"),
+            rs.getObject("counterparty_user_id", Long.class));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate exportJdbcTemplate;
+
+    public LedgerHistoryRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                   @Value("${wallet.export.fetch-size:1000}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Plantilla propia: el tamaño de lote del cursor solo aplica a la exportación
+        JdbcTemplate exportTemplate = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        exportTemplate.setFetchSize(exportFetchSize);
+        this.exportJdbcTemplate = new NamedParameterJdbcTemplate(exportTemplate);
+    }
+
+    /**
+     * Obtiene la siguiente página del historial en orden descendente.
+     *
+     * @param walletId id de la billetera
+     * @param start inicio del rango de fechas (inclusive)
+     * @param end fin del rango de fechas (inclusive)
+     * @param cursor posición de la última fila entregada, o null para la primera página
+     * @param limit número máximo de filas
+     * @return filas ordenadas por (timestamp, origen, id) descendente
+     */
+    public List<LedgerEntry> findPage(Long walletId, Instant start, Instant end, LedgerCursor cursor, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("walletId", walletId)
+                .addValue("start", toOffset(start))
+                .addValue("end", toOffset(end))
+                .addValue("limit", limit);
+
+        if (cursor == null) {
+            params.addValue("cursorTimestamp", toOffset(end))
+                    .addValue("activeIdBound", Long.MAX_VALUE)
+                    .addValue("archivedIdBound", Long.MAX_VALUE);
+        } else {
+            params.addValue("cursorTimestamp", toOffset(cursor.getTimestamp()))
+                    .addValue("activeIdBound", idBound(LedgerSource.ACTIVE, cursor))
+                    .addValue("archivedIdBound", idBound(LedgerSource.ARCHIVED, cursor));
+        }
+
+        return jdbcTemplate.query(PAGE_QUERY, params, ROW_MAPPER);
+    }
+
+    /**
+     * Recorre el historial de un rango en orden ascendente (timestamp, origen, id) y entrega las
+     * filas una a una sin acumularlas. PostgreSQL solo usa un cursor del servidor, que trae las filas
+     * por lotes de {@code wallet.export.fetch-size}, dentro de una transacción: llamar con una activa.
+     *
+     * @param walletId id de la billetera
+     * @param start inicio del rango de fechas (inclusive)
+     * @param end fin del rango de fechas (inclusive)
+     * @param consumer receptor de cada fila
+     */
+    public void streamRange(Long walletId, Instant start, Instant end, Consumer<LedgerEntry> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("walletId", walletId)
+                .addValue("start", toOffset(start))
+                .addValue("end", toOffset(end));
+
+        exportJdbcTemplate.query(EXPORT_QUERY, params, (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Límite de id para las filas de una rama que comparten timestamp con el cursor.
+     * Las filas de un origen que se ordena después del cursor entran todas; las de un
+     * origen que se ordena antes ya fueron entregadas.
+     */
+    private static long idBound(LedgerSource branch, LedgerCursor cursor) {
+        int comparison = Integer.compare(branch.ordinal(), cursor.getSource().ordinal());
+        if (comparison == 0) {
+            return cursor.getId();
+        }
+        return comparison < 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+    private static OffsetDateTime toOffset(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,26 @@
+package com.nomcci.wallet.management.repository;
+
+import com.nomcci.wallet.management.model.ProcessedPaypalOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Repository
+public interface ProcessedPaypalOrderRepository extends JpaRepository<ProcessedPaypalOrder, String> {
+
+    /**
+     * Registra la orden si nadie la acreditó antes. Una inserción concurrente de la misma orden
+     * espera a que la primera termine y no inserta nada si esta se confirmó.
+     * @return filas insertadas (0 si la orden ya estaba registrada)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO processed_paypal_orders (order_id, wallet_id, amount, processed_at) " +
+            "VALUES (:orderId, :walletId, :amount, :processedAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("orderId") String orderId, @Param("walletId") Long walletId,
+                       @Param("amount") BigDecimal amount, @Param("processedAt") Instant processedAt);
+}
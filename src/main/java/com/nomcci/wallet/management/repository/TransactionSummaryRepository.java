@@ -1,13 +1,39 @@
 package com.nomcci.wallet.management.repository;
-import com.nomcci.wallet.management.model.ArchivedTransaction;
+import com.nomcci.wallet.management.model.SummaryGranularity;
 import com.nomcci.wallet.management.model.TransactionSummary;
 import com.nomcci.wallet.management.model.Wallet;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransactionSummaryRepository extends JpaRepository<TransactionSummary, Long> {
     List<TransactionSummary> findByWallet(Wallet wallet);
+
+    /**
+     * Suma en base de datos los importes resumidos de la billetera.
+     */
+    @Query("SELECT COALESCE(SUM(s.totalAmount), 0) FROM TransactionSummary s WHERE s.wallet.id = :walletId")
+    BigDecimal sumTotalAmountByWalletId(@Param("walletId") Long walletId);
+
+    /**
+     * Obtiene y bloquea el resumen de un periodo para actualizarlo sin crear duplicados.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TransactionSummary s WHERE s.wallet = :wallet AND s.period = :period")
+    Optional<TransactionSummary> findForUpdate(@Param("wallet") Wallet wallet, @Param("period") String period);
+
+    List<TransactionSummary> findByWalletAndGranularity(Wallet wallet, SummaryGranularity granularity);
+
+    /**
+     * Resúmenes creados antes de existir la clave (billetera, periodo).
+     */
+    List<TransactionSummary> findByWalletAndGranularityIsNull(Wallet wallet);
 }
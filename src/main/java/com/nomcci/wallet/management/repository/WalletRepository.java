@@ -1,9 +1,19 @@
 package com.nomcci.wallet.management.repository;
 
 import com.nomcci.wallet.management.model.Wallet;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +23,60 @@ public interface WalletRepository extends JpaRepository<Wallet, Long> {
 
 
     boolean existsByUserId(Long userId);
+
+    /**
+     * Id de la billetera del usuario, sin materializar la entidad.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT w.id FROM Wallet w WHERE w.userId = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    /**
+     * Saldo almacenado de la billetera, sin materializar la entidad.
+     * Es una lectura de solo lectura, por lo que puede servirse desde la réplica.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT w.balance FROM Wallet w WHERE w.id = :walletId")
+    Optional<BigDecimal> findBalanceById(@Param("walletId") Long walletId);
+
+    /**
+     * Lee la billetera bloqueando su fila (SELECT ... FOR UPDATE) hasta el final de la transacción.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id = :walletId")
+    Optional<Wallet> findByIdForUpdate(@Param("walletId") Long walletId);
+
+    /**
+     * Lee y bloquea varias billeteras con una sola sentencia. Las filas se bloquean en orden
+     * ascendente de id, el mismo orden que usan las transferencias individuales.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id IN :walletIds ORDER BY w.id")
+    List<Wallet> findAllByIdForUpdate(@Param("walletIds") Collection<Long> walletIds);
+
+    /**
+     * Recorre las billeteras por bloques ordenados por id (paginación por clave).
+     */
+    List<Wallet> findByIdGreaterThanOrderByIdAsc(Long lastId, Pageable pageable);
+
+    /**
+     * Suma el delta al saldo de la billetera con una única sentencia UPDATE atómica.
+     * @param walletId id de la billetera
+     * @param delta cantidad a sumar al saldo
+     * @return filas actualizadas (0 si la billetera no existe)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balance = w.balance + :delta WHERE w.id = :walletId")
+    int applyBalanceDelta(@Param("walletId") Long walletId, @Param("delta") BigDecimal delta);
+
+    /**
+     * Descuenta la cantidad del saldo solo si la billetera tiene fondos suficientes.
+     * La comprobación y el descuento ocurren en la misma sentencia.
+     * @param walletId id de la billetera
+     * @param amount cantidad a descontar (positiva)
+     * @return filas actualizadas (0 si no existe o no tiene saldo suficiente)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balance = w.balance - :amount WHERE w.id = :walletId AND w.balance >= :amount")
+    int debitIfSufficient(@Param("walletId") Long walletId, @Param("amount") BigDecimal amount);
 }
@@ -0,0 +1,168 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.dto.ArchivalReportDTO;
+import com.nomcci.wallet.management.model.SummaryGranularity;
+import com.nomcci.wallet.management.model.TransactionSummary;
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.LedgerArchiveRepository;
+import com.nomcci.wallet.management.repository.TransactionSummaryRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Proceso en segundo plano que mueve las transacciones antiguas a la tabla de archivo,
+ * fuera de la ruta de las peticiones de usuario.
+ */
+@Service
+@RequiredArgsConstructor
+public class ArchivalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivalService.class);
+
+    private final WalletRepository walletRepository;
+    private final TransactionSummaryRepository transactionSummaryRepository;
+    private final LedgerArchiveRepository ledgerArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${wallet.archival.cutoff-days:30}")
+    private int cutoffDays;
+
+    @Value("${wallet.archival.wallet-chunk-size:500}")
+    private int walletChunkSize;
+
+    @Value("${wallet.archival.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Ejecución programada del archivado.
+     */
+    @Scheduled(cron = "${wallet.archival.cron:0 0 3 * * *}")
+    public void runScheduledArchival() {
+        archiveAll();
+    }
+
+    /**
+     * Recorre todas las billeteras por bloques ordenados por id y archiva las transacciones
+     * anteriores a la fecha de corte configurada.
+     * @return resumen de la ejecución con el rendimiento en filas por segundo
+     */
+    public ArchivalReportDTO archiveAll() {
+        Instant cutoffDate = Instant.now().minus(cutoffDays, ChronoUnit.DAYS);
+        long start = System.nanoTime();
+        long walletsScanned = 0;
+        long rowsArchived = 0;
+
+        Long lastId = 0L;
+        List<Wallet> chunk;
+        do {
+            chunk = walletRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, walletChunkSize));
+            for (Wallet wallet : chunk) {
+                rowsArchived += archiveWallet(wallet, cutoffDate);
+                transactionTemplate.executeWithoutResult(status -> compactSummaries(wallet, cutoffDate));
+                lastId = wallet.getId();
+            }
+            walletsScanned += chunk.size();
+        } while (chunk.size() == walletChunkSize);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        ArchivalReportDTO report = new ArchivalReportDTO(cutoffDate, walletsScanned, rowsArchived, elapsedMillis);
+        logger.info("Archivado completado: {} filas de {} billeteras en {} ms ({} filas/s)",
+                rowsArchived, walletsScanned, elapsedMillis, String.format("%.1f", report.getRowsPerSecond()));
+        return report;
+    }
+
+    /**
+     * Archiva las transacciones antiguas de una billetera en lotes acotados, cada uno en su
+     * propia transacción de base de datos y resuelto con una única sentencia sobre conjuntos.
+     * @param wallet billetera a archivar
+     * @param cutoffDate fecha de corte
+     * @return número de filas archivadas
+     */
+    public int archiveWallet(Wallet wallet, Instant cutoffDate) {
+        int archived = 0;
+        Integer moved;
+        do {
+            moved = transactionTemplate.execute(status ->
+                    ledgerArchiveRepository.moveBatch(wallet.getId(), cutoffDate, batchSize, Instant.now()));
+            archived += moved == null ? 0 : moved;
+        } while (moved != null && moved == batchSize);
+        return archived;
+    }
+
+    /**
+     * Compacta los resúmenes de la billetera: normaliza los resúmenes sin periodo a un único
+     * registro mensual y pliega los meses de los años cerrados en un resumen anual, de modo que
+     * el número de resúmenes leídos por saldo se mantiene acotado.
+     * @param wallet billetera a compactar
+     * @param cutoffDate fecha de corte del archivado; los años anteriores a ella se consideran cerrados
+     */
+    public void compactSummaries(Wallet wallet, Instant cutoffDate) {
+        for (TransactionSummary legacy : transactionSummaryRepository.findByWalletAndGranularityIsNull(wallet)) {
+            transactionSummaryRepository.delete(legacy);
+            transactionSummaryRepository.flush();
+            upsertSummary(wallet, legacy.getStartDate().toString().substring(0, 7), SummaryGranularity.MONTH,
+                    legacy.getTotalAmount(), legacy.getStartDate(), legacy.getEndDate());
+        }
+
+        String openYear = cutoffDate.toString().substring(0, 4);
+        Map<String, List<TransactionSummary>> closedMonthsByYear = transactionSummaryRepository
+                .findByWalletAndGranularity(wallet, SummaryGranularity.MONTH)
+                .stream()
+                .filter(month -> month.getPeriod().substring(0, 4).compareTo(openYear) < 0)
+                .collect(Collectors.groupingBy(month -> month.getPeriod().substring(0, 4)));
+
+        closedMonthsByYear.forEach((year, months) -> {
+            transactionSummaryRepository.deleteAll(months);
+            transactionSummaryRepository.flush();
+            upsertSummary(
+                    wallet,
+                    year,
+                    SummaryGranularity.YEAR,
+                    months.stream().map(TransactionSummary::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add),
+                    months.stream().map(TransactionSummary::getStartDate).min(Comparator.naturalOrder()).orElseThrow(),
+                    months.stream().map(TransactionSummary::getEndDate).max(Comparator.naturalOrder()).orElseThrow());
+        });
+    }
+
+    /**
+     * Suma el importe al resumen del periodo, creándolo si aún no existe.
+     */
+    private void upsertSummary(Wallet wallet, String period, SummaryGranularity granularity,
+                               BigDecimal amount, Instant startDate, Instant endDate) {
+        TransactionSummary summary = transactionSummaryRepository.findForUpdate(wallet, period)
+                .orElseGet(() -> {
+                    TransactionSummary created = new TransactionSummary();
+                    created.setWallet(wallet);
+                    created.setPeriod(period);
+                    created.setGranularity(granularity);
+                    created.setTotalAmount(BigDecimal.ZERO);
+                    created.setStartDate(startDate);
+                    created.setEndDate(endDate);
+                    return created;
+                });
+
+        summary.setTotalAmount(summary.getTotalAmount().add(amount));
+        if (startDate.isBefore(summary.getStartDate())) {
+            summary.setStartDate(startDate);
+        }
+        if (endDate.isAfter(summary.getEndDate())) {
+            summary.setEndDate(endDate);
+        }
+        transactionSummaryRepository.save(summary);
+    }
+}
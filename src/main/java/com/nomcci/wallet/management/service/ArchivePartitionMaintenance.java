@@ -0,0 +1,102 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.repository.ArchivePartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Mantiene las particiones mensuales del archivo: crea con antelación las de los meses que el
+ * archivado puede necesitar y, si hay retención configurada, separa y elimina las más antiguas.
+ * Se ejecuta al arrancar y antes del archivado diario.
+ */
+@Service
+public class ArchivePartitionMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivePartitionMaintenance.class);
+
+    private final ArchivePartitionRepository archivePartitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    @Value("${wallet.archival.cutoff-days:30}")
+    private int cutoffDays = 30;
+
+    @Value("${wallet.archive.partitions.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    /** Meses de archivo detallado que se conservan; 0 conserva todas las particiones. */
+    @Value("${wallet.archive.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Autowired
+    public ArchivePartitionMaintenance(ArchivePartitionRepository archivePartitionRepository,
+                                       TransactionTemplate transactionTemplate) {
+        this(archivePartitionRepository, transactionTemplate, Clock.systemUTC());
+    }
+
+    ArchivePartitionMaintenance(ArchivePartitionRepository archivePartitionRepository,
+                                TransactionTemplate transactionTemplate, Clock clock) {
+        this.archivePartitionRepository = archivePartitionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Crea las particiones que falten entre el mes anterior a la fecha de corte del archivado y
+     * {@code months-ahead} meses por delante, y aplica la retención.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${wallet.archive.partitions.cron:0 30 2 * * *}")
+    public void maintainPartitions() {
+        YearMonth currentMonth = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+        // El archivado diario mueve filas del mes de la fecha de corte; el mes anterior cubre
+        // ejecuciones atrasadas
+        YearMonth firstMonth = YearMonth.from(clock.instant().minus(cutoffDays, ChronoUnit.DAYS).atZone(ZoneOffset.UTC))
+                .minusMonths(1);
+        YearMonth lastMonth = currentMonth.plusMonths(monthsAhead);
+
+        List<YearMonth> existing = archivePartitionRepository.findPartitionMonths();
+        Set<YearMonth> present = new HashSet<>(existing);
+        int created = 0;
+        for (YearMonth month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            if (!present.contains(month)) {
+                YearMonth partitionMonth = month;
+                transactionTemplate.executeWithoutResult(status -> archivePartitionRepository.createPartition(partitionMonth));
+                created++;
+            }
+        }
+
+        int dropped = 0;
+        if (retentionMonths > 0) {
+            // Nunca se eliminan meses que el archivado aún puede escribir
+            YearMonth keepFrom = currentMonth.minusMonths(retentionMonths);
+            if (keepFrom.isAfter(firstMonth)) {
+                keepFrom = firstMonth;
+            }
+            for (YearMonth month : existing) {
+                if (month.isBefore(keepFrom)) {
+                    transactionTemplate.executeWithoutResult(status -> archivePartitionRepository.detachPartition(month));
+                    archivePartitionRepository.dropDetachedPartition(month);
+                    dropped++;
+                }
+            }
+        }
+
+        logger.info("Particiones del archivo: {} creadas hasta {}, {} eliminadas", created, lastMonth, dropped);
+    }
+}
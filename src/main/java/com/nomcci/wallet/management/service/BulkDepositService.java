@@ -0,0 +1,224 @@
+package com.nomcci.wallet.management.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nomcci.wallet.management.dto.BulkDepositErrorDTO;
+import com.nomcci.wallet.management.dto.BulkDepositReportDTO;
+import com.nomcci.wallet.management.model.Transaction;
+import com.nomcci.wallet.management.model.TransactionType;
+import com.nomcci.wallet.management.repository.TransactionRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Ingesta masiva de depósitos (pagos de recompensas) a partir de un cuerpo CSV o NDJSON con
+ * pares (walletId, amount). El cuerpo se lee línea a línea sin cargarlo en memoria y los depósitos
+ * se aplican por bloques, cada uno en su propia transacción: una actualización de saldo por
+ * billetera en un lote JDBC y los movimientos del libro en inserciones agrupadas.
+ * Las líneas inválidas o de billeteras inexistentes se rechazan sin detener la ingesta.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkDepositService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkDepositService.class);
+
+    private static final String APPLY_DELTA = "UPDATE wallets SET balance = balance + ? WHERE id = ?";
+
+    /**
+     * Formato del cuerpo: {@code walletId,amount} por línea (con cabecera opcional) o un objeto
+     * JSON {@code {"walletId": 1, "amount": "10.00"}} por línea.
+     */
+    public enum Format { CSV, NDJSON }
+
+    /**
+     * Recibe el avance de la ingesta a medida que se confirma cada bloque.
+     */
+    public interface Listener {
+        void onProgress(BulkDepositReportDTO progress);
+
+        void onRejected(BulkDepositErrorDTO error);
+    }
+
+    private final WalletRepository walletRepository;
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletBalanceCache walletBalanceCache;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    @Value("${wallet.bulk-deposit.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    /**
+     * Lee el cuerpo completo y aplica los depósitos por bloques.
+     *
+     * @param body cuerpo de la petición
+     * @param format formato del cuerpo
+     * @param listener receptor del avance y de las líneas rechazadas
+     * @return resumen final de la ingesta
+     */
+    public BulkDepositReportDTO ingest(Reader body, Format format, Listener listener) throws IOException {
+        Progress progress = new Progress();
+        BufferedReader reader = body instanceof BufferedReader buffered ? buffered : new BufferedReader(body);
+        List<DepositLine> chunk = new ArrayList<>(chunkSize);
+
+        long lineNumber = 0;
+        String raw;
+        while ((raw = reader.readLine()) != null) {
+            lineNumber++;
+            if (raw.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(raw))) {
+                continue;
+            }
+            progress.linesRead++;
+            try {
+                chunk.add(format == Format.CSV ? parseCsv(raw, lineNumber) : parseJson(raw, lineNumber));
+            } catch (IllegalArgumentException e) {
+                progress.linesRejected++;
+                listener.onRejected(new BulkDepositErrorDTO(lineNumber, e.getMessage()));
+                continue;
+            }
+            if (chunk.size() == chunkSize) {
+                applyChunk(chunk, progress, listener);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, progress, listener);
+        }
+
+        BulkDepositReportDTO report = progress.report();
+        logger.info("Ingesta de depósitos completada: {} aplicados, {} rechazados en {} ms ({} depósitos/s)",
+                report.getDepositsApplied(), report.getLinesRejected(), report.getElapsedMillis(),
+                String.format("%.1f", report.getDepositsPerSecond()));
+        return report;
+    }
+
+    private void applyChunk(List<DepositLine> chunk, Progress progress, Listener listener) {
+        Set<Long> missing = transactionTemplate.execute(status -> {
+            // Un delta por billetera, en orden ascendente de id como las transferencias
+            Map<Long, BigDecimal> deltas = new TreeMap<>();
+            chunk.forEach(line -> deltas.merge(line.walletId(), line.amount(), BigDecimal::add));
+            List<Long> walletIds = new ArrayList<>(deltas.keySet());
+            List<Object[]> args = walletIds.stream().map(id -> new Object[]{deltas.get(id), id}).toList();
+            int[] updated = jdbcTemplate.batchUpdate(APPLY_DELTA, args);
+
+            Set<Long> notFound = new HashSet<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    notFound.add(walletIds.get(i));
+                }
+            }
+
+            Instant now = Instant.now();
+            List<Transaction> ledger = new ArrayList<>(chunk.size());
+            for (DepositLine line : chunk) {
+                if (!notFound.contains(line.walletId())) {
+                    Transaction transaction = new Transaction();
+                    transaction.setWallet(walletRepository.getReferenceById(line.walletId()));
+                    transaction.setAmount(line.amount());
+                    transaction.setTransactionType(TransactionType.DEPOSIT);
+                    transaction.setTimestamp(now);
+                    ledger.add(transaction);
+                }
+            }
+            transactionRepository.saveAll(ledger);
+            return notFound;
+        });
+
+        for (DepositLine line : chunk) {
+            if (missing != null && missing.contains(line.walletId())) {
+                progress.linesRejected++;
+                listener.onRejected(new BulkDepositErrorDTO(line.lineNumber(), "Wallet not found."));
+            } else {
+                progress.depositsApplied++;
+                progress.totalAmount = progress.totalAmount.add(line.amount());
+                walletBalanceCache.evict(line.walletId());
+            }
+        }
+        listener.onProgress(progress.report());
+    }
+
+    private static boolean isCsvHeader(String raw) {
+        return raw.trim().toLowerCase().startsWith("walletid");
+    }
+
+    private static DepositLine parseCsv(String raw, long lineNumber) {
+        String[] fields = raw.split(",", -1);
+        if (fields.length != 2) {
+            throw new IllegalArgumentException("Expected walletId,amount.");
+        }
+        return depositLine(lineNumber, fields[0].trim(), fields[1].trim());
+    }
+
+    private DepositLine parseJson(String raw, long lineNumber) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(raw);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON.");
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object with walletId and amount.");
+        }
+        return depositLine(lineNumber, node.path("walletId").asText(), node.path("amount").asText());
+    }
+
+    private static DepositLine depositLine(long lineNumber, String walletId, String amount) {
+        long id;
+        try {
+            id = Long.parseLong(walletId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid wallet id.");
+        }
+        BigDecimal value;
+        try {
+            value = new BigDecimal(amount);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount.");
+        }
+        if (value.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Deposit amount must be greater than zero.");
+        }
+        if (value.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("Amount must have at most two decimal places.");
+        }
+        return new DepositLine(lineNumber, id, value);
+    }
+
+    private record DepositLine(long lineNumber, long walletId, BigDecimal amount) {
+    }
+
+    private static final class Progress {
+        private final long start = System.nanoTime();
+        private long linesRead;
+        private long depositsApplied;
+        private long linesRejected;
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+
+        private BulkDepositReportDTO report() {
+            return new BulkDepositReportDTO(linesRead, depositsApplied, linesRejected, totalAmount,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
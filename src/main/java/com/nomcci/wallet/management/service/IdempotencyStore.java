@@ -0,0 +1,144 @@
+package com.nomcci.wallet.management.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nomcci.wallet.management.model.IdempotencyRecord;
+import com.nomcci.wallet.management.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Almacén de respuestas de peticiones idempotentes: la tabla {@code idempotency_keys} es la
+ * fuente de verdad y reserva cada clave con su clave primaria; una caché acotada delante guarda
+ * las respuestas completadas, de modo que un reintento se responde sin consultar la base de datos.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${wallet.idempotency.cache.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${wallet.idempotency.ttl:P1D}")
+    private Duration ttl;
+
+    @Value("${wallet.idempotency.in-progress-timeout:PT1M}")
+    private Duration inProgressTimeout;
+
+    private Cache<String, IdempotencyRecord> completedById;
+
+    @PostConstruct
+    void initCache() {
+        completedById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completedById, "idempotency.completedById");
+    }
+
+    /**
+     * Busca la respuesta completada de una clave en la caché.
+     *
+     * @param id clave con su ámbito
+     * @return respuesta guardada, vacío si no está en caché
+     */
+    public Optional<IdempotencyRecord> findCached(String id) {
+        return Optional.ofNullable(completedById.getIfPresent(id));
+    }
+
+    /**
+     * Busca la clave en la base de datos, completada o en curso. La transacción de lectura y
+     * escritura fija la consulta al primario: en la réplica, con retraso, una clave completada
+     * podría verse en curso o no existir y la petición se ejecutaría dos veces.
+     *
+     * @param id clave con su ámbito
+     * @return registro de la clave, vacío si no existe
+     */
+    @Transactional
+    public Optional<IdempotencyRecord> find(String id) {
+        Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(id);
+        record.filter(r -> r.getStatusCode() != null).ifPresent(r -> completedById.put(id, r));
+        return record;
+    }
+
+    /**
+     * Reserva la clave para ejecutar la petición. Una reserva existente nunca se toma, aunque
+     * sea antigua: la operación pudo confirmarse antes de que su proceso cayera sin guardar la
+     * respuesta, y repetirla movería el dinero dos veces.
+     *
+     * @param id clave con su ámbito
+     * @param requestHash huella de la petición
+     * @return true si la petición debe ejecutarse
+     */
+    public boolean reserve(String id, String requestHash) {
+        try {
+            idempotencyRecordRepository.insertPending(id, requestHash, Instant.now());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Indica si una reserva sin respuesta supera {@code wallet.idempotency.in-progress-timeout},
+     * es decir, si su resultado es desconocido en lugar de estar en curso.
+     */
+    public boolean isAbandoned(IdempotencyRecord record) {
+        return record.getStatusCode() == null && record.getCreatedAt().isBefore(Instant.now().minus(inProgressTimeout));
+    }
+
+    /**
+     * Guarda la respuesta de la petición y la deja en caché para los reintentos.
+     */
+    public void complete(String id, String requestHash, int statusCode, String contentType, String responseBody) {
+        Instant now = Instant.now();
+        idempotencyRecordRepository.complete(id, statusCode, contentType, responseBody, now);
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setRequestHash(requestHash);
+        record.setStatusCode(statusCode);
+        record.setContentType(contentType);
+        record.setResponseBody(responseBody);
+        record.setCreatedAt(now);
+        record.setCompletedAt(now);
+        completedById.put(id, record);
+    }
+
+    /**
+     * Libera la reserva de una petición que no llegó a completarse.
+     */
+    public void release(String id) {
+        idempotencyRecordRepository.deletePending(id);
+    }
+
+    /**
+     * Elimina las claves más antiguas que el tiempo de retención.
+     */
+    @Scheduled(cron = "${wallet.idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteCreatedBefore(Instant.now().minus(ttl));
+        if (deleted > 0) {
+            logger.info("Claves de idempotencia caducadas eliminadas: {}", deleted);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.nomcci.wallet.management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nomcci.wallet.management.dto.TransactionDTO;
+import com.nomcci.wallet.management.model.LedgerEntry;
+import com.nomcci.wallet.management.repository.LedgerHistoryRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Exportación completa del historial de una billetera (activas y archivadas) para extractos
+ * y auditoría. Las filas llegan en orden cronológico desde un cursor del servidor y se escriben
+ * según se leen; solo se retiene un lote de filas para resolver los nombres de las contrapartes
+ * con una llamada por lote, así que la memoria no depende del número de filas exportadas.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerExportService.class);
+
+    private static final String CSV_HEADER = "timestamp,transactionType,amount,destinationWallet\n";
+
+    /**
+     * Formato de salida: CSV con cabecera o un objeto JSON por línea.
+     */
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + name);
+        }
+    }
+
+    private final WalletRepository walletRepository;
+    private final LedgerHistoryRepository ledgerHistoryRepository;
+    private final UserDirectoryClient userDirectoryClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${wallet.export.name-batch-size:500}")
+    private int nameBatchSize = 500;
+
+    /**
+     * Comprueba que la billetera existe antes de empezar a escribir la respuesta.
+     *
+     * @param walletId id de la billetera
+     */
+    public void requireWallet(Long walletId) {
+        if (!walletRepository.existsById(walletId)) {
+            throw new IllegalArgumentException("Wallet not found.");
+        }
+    }
+
+    /**
+     * Escribe el historial del rango en orden cronológico.
+     *
+     * @param walletId id de la billetera
+     * @param startTimestamp inicio del rango, o null para el principio
+     * @param endTimestamp fin del rango, o null para el momento actual
+     * @param format formato de salida
+     * @param output destino; no se cierra
+     * @return número de filas exportadas
+     */
+    @Transactional(readOnly = true)
+    public long export(Long walletId, Instant startTimestamp, Instant endTimestamp, Format format, OutputStream output) throws IOException {
+        Instant start = startTimestamp == null ? Instant.EPOCH : startTimestamp;
+        Instant end = endTimestamp == null ? Instant.now() : endTimestamp;
+        long began = System.nanoTime();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        List<LedgerEntry> pending = new ArrayList<>(nameBatchSize);
+        long[] rows = {0};
+        try {
+            ledgerHistoryRepository.streamRange(walletId, start, end, entry -> {
+                pending.add(entry);
+                if (pending.size() == nameBatchSize) {
+                    rows[0] += writeBatch(pending, format, writer);
+                    pending.clear();
+                }
+            });
+            if (!pending.isEmpty()) {
+                rows[0] += writeBatch(pending, format, writer);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+
+        logger.info("Exportadas {} transacciones de la billetera {} en {} ms",
+                rows[0], walletId, (System.nanoTime() - began) / 1_000_000);
+        return rows[0];
+    }
+
+    private int writeBatch(List<LedgerEntry> entries, Format format, Writer writer) {
+        Map<Long, String> counterpartyNames = userDirectoryClient.getFirstNamesByIds(entries.stream()
+                .map(LedgerEntry::getCounterpartyUserId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList());
+        try {
+            for (LedgerEntry entry : entries) {
+                String firstName = entry.getCounterpartyUserId() == null
+                        ? "N/A"
+                        : counterpartyNames.getOrDefault(entry.getCounterpartyUserId(), "N/A");
+                TransactionDTO row = new TransactionDTO(entry.getTimestamp(), firstName,
+                        entry.getTransactionType().name(), entry.getAmount());
+                if (format == Format.CSV) {
+                    writer.write(row.getTimestamp() + "," + row.getTransactionType() + ","
+                            + row.getAmount().toPlainString() + "," + csvField(row.getDestinationWallet()) + "\n");
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+            // Cada lote llega al cliente sin esperar al final de la exportación
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries.size();
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -3,8 +3,11 @@ package com.nomcci.wallet.management.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nomcci.wallet.management.dto.PaymentVerificationResponseDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -17,11 +20,7 @@ import java.math.BigDecimal;
 @Service
 public class PaypalService {
 
-    @Value("${paypal.client.id}")
-    private String clientId;
-
-    @Value("${paypal.client.secret}")
-    private String clientSecret;
+    private static final Logger logger = LoggerFactory.getLogger(PaypalService.class);
 
     @Value("${paypal.mode}")
     private String mode;
@@ -29,18 +28,21 @@ public class PaypalService {
     @Value("${front_end.url}")
     private String frontendLink;
 
-    private static final String PAYPAL_API_URL = "https://api.sandbox.paypal.com"; // Se puede cambiar a "https://api.paypal.com" en produccion
+    @Value("${paypal.api.url:https://api.sandbox.paypal.com}") // https://api.paypal.com en produccion
+    private String paypalApiUrl;
 
     private final RestTemplate restTemplate;
+    private final PaypalTokenManager tokenManager;
     private final ObjectMapper objectMapper;
 
-    public PaypalService() {
-        restTemplate = new RestTemplate();
-        objectMapper = new ObjectMapper();
+    public PaypalService(RestTemplate restTemplate, PaypalTokenManager tokenManager) {
+        this.restTemplate = restTemplate;
+        this.tokenManager = tokenManager;
+        this.objectMapper = new ObjectMapper();
     }
 
     public String createOrder(BigDecimal amount) throws Exception {
-        String accessToken = getAccessToken();
+        String accessToken = tokenManager.getAccessToken();
         String requestBody = "{\n" +
                 "  \"intent\": \"CAPTURE\",\n" +
                 "  \"purchase_units\": [\n" +
@@ -64,7 +66,7 @@ public class PaypalService {
         HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
 
         // Crea el pago
-        ResponseEntity<String> response = restTemplate.exchange(PAYPAL_API_URL + "/v2/checkout/orders", HttpMethod.POST, entity, String.class);
+        ResponseEntity<String> response = exchange(paypalApiUrl + "/v2/checkout/orders", HttpMethod.POST, entity, String.class);
 
         if (response.getStatusCode().is2xxSuccessful()) {
             JsonNode jsonResponse = objectMapper.readTree(response.getBody());
@@ -77,24 +79,13 @@ public class PaypalService {
 
 
 
-    private String getAccessToken() throws Exception {
-        String auth = clientId + ":" + clientSecret;
-        String encodedAuth = java.util.Base64.getEncoder().encodeToString(auth.getBytes());
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Basic " + encodedAuth);
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-        String body = "grant_type=client_credentials";
-        HttpEntity<String> entity = new HttpEntity<>(body, headers);
-
-        ResponseEntity<String> response = restTemplate.exchange(PAYPAL_API_URL + "/v1/oauth2/token", HttpMethod.POST, entity, String.class);
-
-        if (response.getStatusCode().is2xxSuccessful()) {
-            JsonNode jsonResponse = objectMapper.readTree(response.getBody());
-            return jsonResponse.get("access_token").asText();
-        } else {
-            throw new Exception("Error obtaining access token: " + response.getStatusCode());
+    // Si PayPal rechaza el token antes de su expiración, se descarta para que la siguiente llamada pida otro
+    private ResponseEntity<String> exchange(String url, HttpMethod method, HttpEntity<?> entity, Class<String> responseType) {
+        try {
+            return restTemplate.exchange(url, method, entity, responseType);
+        } catch (HttpClientErrorException.Unauthorized e) {
+            tokenManager.invalidate();
+            throw e;
         }
     }
 
@@ -108,11 +99,11 @@ public class PaypalService {
 
 
     public PaymentVerificationResponseDTO verifyPayment(String token) throws Exception {
-        String accessToken = getAccessToken();
+        String accessToken = tokenManager.getAccessToken();
 
         // Llamada a PayPal para verificar el estado del pago
-        ResponseEntity<String> response = restTemplate.exchange(
-                PAYPAL_API_URL + "/v2/checkout/orders/" + token,
+        ResponseEntity<String> response = exchange(
+                paypalApiUrl + "/v2/checkout/orders/" + token,
                 HttpMethod.GET,
                 new HttpEntity<>(createHeaders(accessToken)),
                 String.class
@@ -136,7 +127,7 @@ public class PaypalService {
                     String value = amountNode.get("value").asText();
                     currency = amountNode.get("currency_code").asText();
                     amount = new BigDecimal(value);
-                    System.out.println("Monto extraído: " + amount + " " + currency);
+                    logger.debug("Monto extraído: {} {}", amount, currency);
                 }
 
                 // Maneja el caso APPROVED e intenta capturar el pago
@@ -178,7 +169,7 @@ public class PaypalService {
         HttpHeaders headers = createHeaders(accessToken);
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
-        ResponseEntity<String> response = restTemplate.exchange(
+        ResponseEntity<String> response = exchange(
                 captureUrl, HttpMethod.POST, entity, String.class
         );
 
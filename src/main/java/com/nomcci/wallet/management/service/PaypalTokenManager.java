@@ -0,0 +1,145 @@
+package com.nomcci.wallet.management.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mantiene el access token OAuth de PayPal (client credentials) durante su vigencia
+ * ({@code expires_in}) y lo renueva en segundo plano antes de que expire.
+ * Solo una petición a la vez consulta el endpoint de tokens; el resto espera y reutiliza el resultado.
+ */
+@Component
+public class PaypalTokenManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaypalTokenManager.class);
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Clock clock;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile AccessToken current;
+
+    @Value("${paypal.client.id}")
+    private String clientId;
+
+    @Value("${paypal.client.secret}")
+    private String clientSecret;
+
+    @Value("${paypal.api.url:https://api.sandbox.paypal.com}")
+    private String paypalApiUrl;
+
+    @Value("${paypal.token.refresh-margin:PT5M}")
+    private Duration refreshMargin = Duration.ofMinutes(5);
+
+    @Autowired
+    public PaypalTokenManager(RestTemplate restTemplate) {
+        this(restTemplate, Clock.systemUTC());
+    }
+
+    PaypalTokenManager(RestTemplate restTemplate, Clock clock) {
+        this.restTemplate = restTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Devuelve un access token vigente, pidiéndolo a PayPal solo si no hay uno en caché o ya expiró.
+     *
+     * @return access token de PayPal
+     */
+    public String getAccessToken() throws Exception {
+        AccessToken token = current;
+        if (token != null && clock.instant().isBefore(token.expiresAt())) {
+            return token.value();
+        }
+        return refresh(false).value();
+    }
+
+    /**
+     * Renueva el token en segundo plano cuando entra en su margen de renovación, para que
+     * las peticiones de pago no esperen la ida y vuelta al endpoint de tokens.
+     */
+    @Scheduled(fixedDelayString = "${paypal.token.refresh-check-interval:PT30S}")
+    public void refreshIfExpiring() {
+        AccessToken token = current;
+        if (token == null || clock.instant().isBefore(token.refreshAt())) {
+            return;
+        }
+        try {
+            refresh(true);
+        } catch (Exception e) {
+            // El token actual sigue siendo válido hasta expiresAt; se reintenta en la siguiente pasada
+            logger.warn("No se pudo renovar el access token de PayPal: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Descarta el token en caché, por ejemplo si PayPal lo rechaza antes de su expiración.
+     */
+    public void invalidate() {
+        current = null;
+    }
+
+    private AccessToken refresh(boolean proactive) throws Exception {
+        refreshLock.lock();
+        try {
+            // Otro hilo pudo renovarlo mientras se esperaba el candado
+            AccessToken token = current;
+            Instant now = clock.instant();
+            boolean stale = proactive
+                    ? token == null || !now.isBefore(token.refreshAt())
+                    : token == null || !now.isBefore(token.expiresAt());
+            if (stale) {
+                token = requestToken(now);
+                current = token;
+            }
+            return token;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private AccessToken requestToken(Instant now) throws Exception {
+        String auth = clientId + ":" + clientSecret;
+        String encodedAuth = java.util.Base64.getEncoder().encodeToString(auth.getBytes());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Basic " + encodedAuth);
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+
+        String body = "grant_type=client_credentials";
+        HttpEntity<String> entity = new HttpEntity<>(body, headers);
+
+        ResponseEntity<String> response = restTemplate.exchange(paypalApiUrl + "/v1/oauth2/token", HttpMethod.POST, entity, String.class);
+
+        if (response.getStatusCode().is2xxSuccessful()) {
+            JsonNode jsonResponse = objectMapper.readTree(response.getBody());
+            Duration lifetime = Duration.ofSeconds(jsonResponse.path("expires_in").asLong(0));
+            Duration margin = refreshMargin.compareTo(lifetime) < 0 ? refreshMargin : lifetime.dividedBy(2);
+            Instant expiresAt = now.plus(lifetime);
+            return new AccessToken(jsonResponse.get("access_token").asText(), expiresAt.minus(margin), expiresAt);
+        } else {
+            throw new Exception("Error obtaining access token: " + response.getStatusCode());
+        }
+    }
+
+    private record AccessToken(String value, Instant refreshAt, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,232 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.dto.BatchTransferResultDTO;
+import com.nomcci.wallet.management.dto.TransferLegDTO;
+import com.nomcci.wallet.management.dto.TransferLegResultDTO;
+import com.nomcci.wallet.management.model.Transaction;
+import com.nomcci.wallet.management.model.TransactionType;
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.TransactionRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ejecuta transferencias entre billeteras bloqueando ambas filas en orden ascendente de id,
+ * de modo que dos transferencias opuestas (A → B y B → A) no puedan bloquearse mutuamente.
+ * Cada intento corre en su propia transacción; los conflictos de bloqueo que aun así reporte
+ * la base de datos (tiempo de espera, serialización) se reintentan un número acotado de veces.
+ */
+@Service
+public class TransferEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferEngine.class);
+
+    private final WalletRepository walletRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter completed;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    @Value("${wallet.transfer.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${wallet.transfer.retry-backoff:PT0.02S}")
+    private Duration retryBackoff = Duration.ofMillis(20);
+
+    @Value("${wallet.transfer.batch.max-legs:500}")
+    private int maxBatchLegs = 500;
+
+    public TransferEngine(WalletRepository walletRepository,
+                          TransactionRepository transactionRepository,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.completed = meterRegistry.counter("wallet.transfers", "outcome", "completed");
+        this.exhausted = meterRegistry.counter("wallet.transfers", "outcome", "retries_exhausted");
+        this.retries = meterRegistry.counter("wallet.transfer.retries");
+    }
+
+    /**
+     * Transfiere la cantidad entre dos billeteras de forma atómica.
+     *
+     * @param fromWalletId id de la billetera de origen
+     * @param toWalletId id de la billetera de destino
+     * @param amount cantidad a transferir
+     */
+    public void transfer(Long fromWalletId, Long toWalletId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be greater than zero.");
+        }
+        if (fromWalletId.equals(toWalletId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same wallet.");
+        }
+
+        executeWithRetries(fromWalletId, status -> {
+            transferLocked(fromWalletId, toWalletId, amount);
+            return null;
+        });
+        completed.increment();
+    }
+
+    /**
+     * Ejecuta varias transferencias desde una misma billetera en una única transacción: se
+     * bloquean todas las billeteras implicadas en orden ascendente de id, se valida el total
+     * contra el saldo de origen una sola vez y los movimientos se insertan en lotes.
+     * Si algún tramo no es válido no se aplica ninguno.
+     *
+     * @param fromWalletId id de la billetera de origen
+     * @param legs destino e importe de cada tramo
+     * @return resultado del lote con los movimientos registrados por tramo
+     */
+    public BatchTransferResultDTO transferBatch(Long fromWalletId, List<TransferLegDTO> legs) {
+        if (legs == null || legs.isEmpty()) {
+            throw new IllegalArgumentException("A batch transfer needs at least one leg.");
+        }
+        if (legs.size() > maxBatchLegs) {
+            throw new IllegalArgumentException("A batch transfer accepts at most " + maxBatchLegs + " legs.");
+        }
+        for (int i = 0; i < legs.size(); i++) {
+            TransferLegDTO leg = legs.get(i);
+            if (leg.getToWalletId() == null) {
+                throw new IllegalArgumentException("Leg " + i + ": destination wallet is required.");
+            }
+            if (leg.getAmount() == null || leg.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Leg " + i + ": transfer amount must be greater than zero.");
+            }
+            if (fromWalletId.equals(leg.getToWalletId())) {
+                throw new IllegalArgumentException("Leg " + i + ": cannot transfer to the same wallet.");
+            }
+        }
+
+        BatchTransferResultDTO result = executeWithRetries(fromWalletId, status -> transferBatchLocked(fromWalletId, legs));
+        completed.increment(legs.size());
+        return result;
+    }
+
+    // Cada intento corre en su propia transacción; los conflictos de bloqueo se reintentan
+    private <T> T executeWithRetries(Long fromWalletId, TransactionCallback<T> callback) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(callback);
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    logger.warn("Transferencia desde {} abortada tras {} intentos por conflicto de bloqueo", fromWalletId, attempt);
+                    throw e;
+                }
+                retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void transferLocked(Long fromWalletId, Long toWalletId, BigDecimal amount) {
+        // Orden canónico: siempre se bloquea primero el id menor
+        boolean fromFirst = fromWalletId < toWalletId;
+        Wallet first = lock(fromFirst ? fromWalletId : toWalletId, fromFirst);
+        Wallet second = lock(fromFirst ? toWalletId : fromWalletId, !fromFirst);
+        Wallet fromWallet = fromFirst ? first : second;
+        Wallet toWallet = fromFirst ? second : first;
+
+        // Con ambas filas bloqueadas, el saldo leído no puede cambiar hasta el commit
+        if (fromWallet.getBalance().compareTo(amount) < 0) {
+            throw new IllegalArgumentException("Insufficient balance in source wallet.");
+        }
+        fromWallet.setBalance(fromWallet.getBalance().subtract(amount));
+        toWallet.setBalance(toWallet.getBalance().add(amount));
+
+        Instant now = Instant.now();
+        transactionRepository.save(movement(fromWallet, toWallet, amount.negate(), now));
+        transactionRepository.save(movement(toWallet, fromWallet, amount, now));
+    }
+
+    private BatchTransferResultDTO transferBatchLocked(Long fromWalletId, List<TransferLegDTO> legs) {
+        Set<Long> walletIds = new TreeSet<>();
+        walletIds.add(fromWalletId);
+        legs.forEach(leg -> walletIds.add(leg.getToWalletId()));
+        Map<Long, Wallet> wallets = walletRepository.findAllByIdForUpdate(walletIds).stream()
+                .collect(Collectors.toMap(Wallet::getId, Function.identity()));
+
+        Wallet fromWallet = wallets.get(fromWalletId);
+        if (fromWallet == null) {
+            throw new IllegalArgumentException("Wallet not found.");
+        }
+        BigDecimal total = legs.stream().map(TransferLegDTO::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (fromWallet.getBalance().compareTo(total) < 0) {
+            throw new IllegalArgumentException("Insufficient balance in source wallet.");
+        }
+        fromWallet.setBalance(fromWallet.getBalance().subtract(total));
+
+        Instant now = Instant.now();
+        List<Transaction> movements = new ArrayList<>(legs.size() * 2);
+        for (int i = 0; i < legs.size(); i++) {
+            TransferLegDTO leg = legs.get(i);
+            Wallet toWallet = wallets.get(leg.getToWalletId());
+            if (toWallet == null) {
+                throw new IllegalArgumentException("Leg " + i + ": destination wallet not found.");
+            }
+            toWallet.setBalance(toWallet.getBalance().add(leg.getAmount()));
+            movements.add(movement(fromWallet, toWallet, leg.getAmount().negate(), now));
+            movements.add(movement(toWallet, fromWallet, leg.getAmount(), now));
+        }
+        // Los ids salen de la secuencia por bloques, así que las inserciones viajan en lotes JDBC
+        transactionRepository.saveAll(movements);
+
+        List<TransferLegResultDTO> results = new ArrayList<>(legs.size());
+        for (int i = 0; i < legs.size(); i++) {
+            TransferLegDTO leg = legs.get(i);
+            results.add(new TransferLegResultDTO(i, leg.getToWalletId(), leg.getAmount(),
+                    movements.get(2 * i).getId(), movements.get(2 * i + 1).getId()));
+        }
+        return new BatchTransferResultDTO(fromWalletId, total, fromWallet.getBalance(), results);
+    }
+
+    private Wallet lock(Long walletId, boolean source) {
+        return walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> new IllegalArgumentException(source ? "Wallet not found." : "Destination wallet not found."));
+    }
+
+    private static Transaction movement(Wallet wallet, Wallet counterparty, BigDecimal amount, Instant timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setWallet(wallet);
+        transaction.setDestinationWallet(counterparty);
+        transaction.setAmount(amount);
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+
+    // Espera creciente con variación aleatoria para que los reintentos no vuelvan a coincidir
+    private void backoff(int attempt) {
+        long millis = retryBackoff.toMillis() * attempt;
+        try {
+            Thread.sleep(millis + ThreadLocalRandom.current().nextLong(millis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Transferencia interrumpida", e);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.nomcci.wallet.management.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nomcci.wallet.management.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cliente del servicio de autenticación para resolver datos de usuarios
+ * (nombre por id e id por correo electrónico).
+ * Las respuestas se guardan en cachés acotadas (W-TinyLFU) con expiración, ya que
+ * los nombres y la relación correo → id casi nunca cambian.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDirectoryClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectoryClient.class);
+
+    private final JwtUtil jwtUtil;
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.service.url}")
+    private String authUrl;
+
+    @Value("${wallet.user-directory.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${wallet.user-directory.cache.ttl:PT1H}")
+    private Duration ttl;
+
+    @Value("${wallet.user-directory.cache.negative-ttl:PT1M}")
+    private Duration negativeTtl;
+
+    private Cache<Long, String> namesById;
+    private Cache<String, Optional<Long>> userIdsByEmail;
+
+    @PostConstruct
+    void initCaches() {
+        namesById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        // Los correos desconocidos se recuerdan durante menos tiempo que los encontrados
+        userIdsByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Optional<Long>>() {
+                    @Override
+                    public long expireAfterCreate(String email, Optional<Long> userId, long currentTime) {
+                        return (userId.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String email, Optional<Long> userId, long currentTime, long currentDuration) {
+                        return expireAfterCreate(email, userId, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String email, Optional<Long> userId, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, namesById, "userDirectory.namesById");
+        CaffeineCacheMetrics.monitor(meterRegistry, userIdsByEmail, "userDirectory.userIdsByEmail");
+    }
+
+    /**
+     * Obtiene el nombre de un usuario, consultando al servicio de autenticación solo si no está en caché.
+     */
+    public String getFirstNameById(Long userId) {
+        // La llamada remota se hace fuera de Cache.get: su función de carga se ejecuta dentro de un
+        // bloque synchronized del mapa y fijaría el hilo portador de un hilo virtual
+        String name = namesById.getIfPresent(userId);
+        if (name == null) {
+            name = fetchFirstNameById(userId);
+            if (name != null) {
+                namesById.put(userId, name);
+            }
+        }
+        return name;
+    }
+
+    private String fetchFirstNameById(Long userId) {
+        String url = authUrl + "/internal/wallet/get-user-by-id/" + userId;
+
+        // Configurar los headers con el token
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtUtil.generateServiceToken());
+
+        // Crear la entidad HTTP
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        // Hacer la solicitud GET
+        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+
+        return response.getBody();
+    }
+
+    /**
+     * Resuelve el nombre de varios usuarios con una única llamada al servicio de autenticación.
+     * Si el servicio aún no expone la consulta masiva, se resuelve cada id distinto por separado.
+     * Los ids sin nombre no aparecen en el resultado (ni en la caché, que no admite nulos).
+     *
+     * @param userIds ids de usuario (pueden repetirse)
+     * @return nombre por id de usuario
+     */
+    public Map<Long, String> getFirstNamesByIds(Collection<Long> userIds) {
+        Set<Long> distinctIds = new LinkedHashSet<>(userIds);
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+        // Solo los ids que no están en caché viajan al servicio de autenticación
+        return namesById.getAll(distinctIds, this::fetchFirstNamesByIds);
+    }
+
+    private Map<Long, String> fetchFirstNamesByIds(Set<? extends Long> distinctIds) {
+        String url = authUrl + "/internal/wallet/get-users-by-ids";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtUtil.generateServiceToken());
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<Set<? extends Long>> entity = new HttpEntity<>(distinctIds, headers);
+
+        try {
+            ResponseEntity<Map<Long, String>> response = restTemplate.exchange(
+                    url, HttpMethod.POST, entity, new ParameterizedTypeReference<>() {});
+            Map<Long, String> names = new HashMap<>();
+            if (response.getBody() != null) {
+                response.getBody().forEach((userId, name) -> {
+                    if (name != null) {
+                        names.put(userId, name);
+                    }
+                });
+            }
+            return names;
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed ex) {
+            logger.warn("El servicio de autenticación no expone la consulta masiva de nombres; se resuelven {} ids por separado", distinctIds.size());
+            Map<Long, String> names = new HashMap<>();
+            for (Long userId : distinctIds) {
+                String name = fetchFirstNameById(userId);
+                if (name != null) {
+                    names.put(userId, name);
+                }
+            }
+            return names;
+        }
+    }
+
+    /**
+     * Obtiene el id del usuario asociado a un correo electrónico.
+     * Los correos desconocidos también se guardan en caché (caché negativa). Solo la clave de la
+     * caché se normaliza (sin espacios y en minúsculas); al servicio de autenticación se le
+     * consulta con el correo tal como llega.
+     *
+     * @param email correo electrónico
+     * @return id del usuario, o null si el servicio de autenticación no lo conoce
+     */
+    public Long getUserIdByEmail(String email) {
+        String key = email.trim().toLowerCase(Locale.ROOT);
+        Optional<Long> userId = userIdsByEmail.getIfPresent(key);
+        if (userId == null) {
+            userId = fetchUserIdByEmail(email);
+            userIdsByEmail.put(key, userId);
+        }
+        return userId.orElse(null);
+    }
+
+    private Optional<Long> fetchUserIdByEmail(String email) {
+        // El correo va como variable de la URI para codificarlo por completo ("+", "&", "=")
+        URI url = UriComponentsBuilder.fromUriString(authUrl + "/internal/wallet/get-id-by-email")
+                .queryParam("email", "{email}")
+                .encode()
+                .buildAndExpand(email)
+                .toUri();
+        logger.debug("Consultando el id del usuario por correo: {}", url);
+        try{
+            // Configurar los headers con el token
+            HttpHeaders headers = new HttpHeaders();
+            headers.setBearerAuth(jwtUtil.generateServiceToken());
+
+            // Crear la entidad HTTP
+            HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+            // Hacer la solicitud GET
+            ResponseEntity<Long> response = restTemplate.exchange(url, HttpMethod.GET, entity, Long.class);
+
+            return Optional.ofNullable(response.getBody());
+        } catch (HttpClientErrorException.NotFound ex) {
+            return Optional.empty();
+        } catch (HttpClientErrorException | HttpServerErrorException ex) {
+            logger.debug("Error al consultar {}: {} - {}", url, ex.getStatusCode(), ex.getResponseBodyAsString());
+            throw new RuntimeException("Error al hacer la solicitud", ex);
+        } catch (Exception e) {
+            logger.debug("Error al consultar {}", url, e);
+            throw new RuntimeException("Error al hacer la solicitud", e);
+        }
+    }
+}
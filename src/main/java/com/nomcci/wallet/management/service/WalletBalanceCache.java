@@ -0,0 +1,113 @@
+package com.nomcci.wallet.management.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Caché de lectura de saldos por id de billetera para la consulta de saldo.
+ * Los fallos se resuelven con consultas de proyección sin bloqueos ni escrituras, leídas del primario:
+ * un saldo servido por una réplica retrasada justo después de invalidar la entrada quedaría en caché
+ * durante toda la expiración.
+ * Las mutaciones invalidan la entrada al terminar su transacción; la expiración acota lo que puede
+ * sobrevivir un saldo leído justo antes de esa confirmación.
+ */
+@Component
+@RequiredArgsConstructor
+public class WalletBalanceCache {
+
+    private final WalletRepository walletRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${wallet.balance-cache.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${wallet.balance-cache.ttl:PT10S}")
+    private Duration ttl;
+
+    private Cache<Long, BigDecimal> balancesByWallet;
+    private Cache<Long, Long> walletIdsByUser;
+
+    @PostConstruct
+    void initCaches() {
+        balancesByWallet = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        // Un usuario tiene siempre la misma billetera, así que esta relación no se invalida
+        walletIdsByUser = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, balancesByWallet, "walletBalance.balancesByWallet");
+        CaffeineCacheMetrics.monitor(meterRegistry, walletIdsByUser, "walletBalance.walletIdsByUser");
+    }
+
+    /**
+     * Obtiene el id de la billetera de un usuario.
+     *
+     * @param userId id del usuario
+     * @return id de la billetera, vacío si el usuario no tiene billetera
+     */
+    public Optional<Long> getWalletId(Long userId) {
+        Long walletId = walletIdsByUser.getIfPresent(userId);
+        if (walletId == null) {
+            Optional<Long> loaded = walletRepository.findIdByUserId(userId);
+            loaded.ifPresent(id -> walletIdsByUser.put(userId, id));
+            return loaded;
+        }
+        return Optional.of(walletId);
+    }
+
+    /**
+     * Obtiene el saldo de una billetera, consultando la base de datos solo si no está en caché.
+     *
+     * @param walletId id de la billetera
+     * @return saldo, vacío si la billetera no existe
+     */
+    public Optional<BigDecimal> getBalance(Long walletId) {
+        BigDecimal balance = balancesByWallet.getIfPresent(walletId);
+        if (balance == null) {
+            // Una transacción de lectura-escritura mantiene la consulta en el primario
+            Optional<BigDecimal> loaded = transactionTemplate.execute(status -> walletRepository.findBalanceById(walletId));
+            loaded.ifPresent(value -> balancesByWallet.put(walletId, value));
+            return loaded;
+        }
+        return Optional.of(balance);
+    }
+
+    /**
+     * Invalida el saldo de la billetera ahora y de nuevo al terminar la transacción en curso,
+     * para descartar también un valor cargado mientras la mutación aún no era visible.
+     *
+     * @param walletId id de la billetera modificada
+     */
+    public void evict(Long walletId) {
+        balancesByWallet.invalidate(walletId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    balancesByWallet.invalidate(walletId);
+                }
+            });
+        }
+    }
+}
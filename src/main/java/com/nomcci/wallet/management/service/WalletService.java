@@ -1,19 +1,19 @@
 package com.nomcci.wallet.management.service;
 
+import com.nomcci.wallet.management.dto.BatchTransferResultDTO;
 import com.nomcci.wallet.management.dto.TransactionDTO;
+import com.nomcci.wallet.management.dto.TransactionHistoryPageDTO;
+import com.nomcci.wallet.management.dto.TransactionTypeSummaryDTO;
+import com.nomcci.wallet.management.dto.TransferLegDTO;
+import com.nomcci.wallet.management.exception.PaymentAlreadyProcessedException;
 import com.nomcci.wallet.management.model.*;
 import com.nomcci.wallet.management.repository.*;
-import com.nomcci.wallet.management.util.JwtUtil;
+import com.nomcci.wallet.management.util.LedgerCursor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.*;
 
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -21,30 +21,33 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import java.time.Instant;
 
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class WalletService {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final WalletRepository walletRepository;
     private final TransactionRepository transactionRepository;
     private final TransactionSummaryRepository transactionSummaryRepository;
     private final ArchivedTransactionRepository archivedTransactionRepository;
-    private final JwtUtil jwtUtil;
-    private final RestTemplate restTemplate;
+    private final LedgerHistoryRepository ledgerHistoryRepository;
+    private final UserDirectoryClient userDirectoryClient;
+    private final TransferEngine transferEngine;
+    private final WalletBalanceCache walletBalanceCache;
+    private final ProcessedPaypalOrderRepository processedPaypalOrderRepository;
 
-    @Value("${auth.service.url}")
-    private String authUrl;
+    @Value("${wallet.ledger.verify-balance:false}")
+    private boolean verifyBalance;
 
 
     /**
@@ -62,20 +65,20 @@ public class WalletService {
         Wallet wallet = walletRepository.findById(walletId)
                 .orElseThrow(() -> new IllegalArgumentException("Wallet not found."));
 
-        // Crea y guarda la transaccion
-        Transaction transaction = new Transaction();
-        transaction.setWallet(wallet);
-        transaction.setAmount(amount);
-        transaction.setTransactionType(TransactionType.DEPOSIT);
-        transaction.setTimestamp(Instant.now());
-        transactionRepository.save(transaction);
-
-        // Calcula el saldo
-        return recalculateBalance(walletId);
+        // Registra la transaccion y aplica el delta al saldo
+        return recordMovement(wallet, amount, TransactionType.DEPOSIT);
     }
 
+    /**
+     * Acredita una orden de PayPal completada en la billetera del usuario autenticado. La orden
+     * se registra en la misma transacción que el depósito, así que solo se acredita una vez.
+     * @param orderId token de la orden de PayPal
+     * @param amount cantidad capturada por PayPal
+     * @return billetera con saldo recalculado
+     * @throws PaymentAlreadyProcessedException si la orden ya se acreditó
+     */
     @Transactional
-    public Wallet deposit(BigDecimal amount) {
+    public Wallet depositPaypalOrder(String orderId, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Deposit amount must be greater than zero.");
         }
@@ -83,21 +86,15 @@ public class WalletService {
         Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Long userId = Long.parseLong(jwt.getSubject());
 
-        System.out.println("Id: "+userId);
-
         Wallet wallet = walletRepository.findByUserId(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Wallet not found for the user."));
 
-        // Crea y guarda la transaccion
-        Transaction transaction = new Transaction();
-        transaction.setWallet(wallet);
-        transaction.setAmount(amount);
-        transaction.setTransactionType(TransactionType.DEPOSIT);
-        transaction.setTimestamp(Instant.now());
-        transactionRepository.save(transaction);
+        if (processedPaypalOrderRepository.insertIfAbsent(orderId, wallet.getId(), amount, Instant.now()) == 0) {
+            throw new PaymentAlreadyProcessedException("PayPal order " + orderId + " was already credited.");
+        }
 
-        // Calcula el saldo
-        return recalculateBalance(wallet.getId());
+        // Registra la transaccion y aplica el delta al saldo
+        return recordMovement(wallet, amount, TransactionType.DEPOSIT);
     }
 
     /**
@@ -120,22 +117,8 @@ public class WalletService {
         Wallet wallet = walletRepository.findByUserId(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Billetera no encontrada para el usuario"));
 
-        // Revisa si la billetera tiene suficiente saldo
-        BigDecimal currentBalance = wallet.getBalance();
-        if (currentBalance.compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient balance.");
-        }
-
-        // Crea y guarda la transacción
-        Transaction transaction = new Transaction();
-        transaction.setWallet(wallet);
-        transaction.setAmount(amount.negate());
-        transaction.setTransactionType(TransactionType.WITHDRAWAL);
-        transaction.setTimestamp(Instant.now());
-        transactionRepository.save(transaction);
-
-        // Recalcula el saldo de la billetera
-        return recalculateBalance(wallet.getId());
+        // Descuenta el saldo (si es suficiente) y registra la transacción
+        return recordMovement(wallet, amount.negate(), TransactionType.WITHDRAWAL);
     }
 
     /**
@@ -144,7 +127,6 @@ public class WalletService {
      * @param toEmail Correo electrónico de la billetera de destino.
      * @param amount  Cantidad de saldo a transferir.
      */
-    @Transactional
     public void transfer(String toEmail, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Transfer amount must be greater than zero.");
@@ -160,50 +142,26 @@ public class WalletService {
                 .orElseThrow(() -> new IllegalArgumentException("Wallet not found for the user."));
 
         // Busca la billetera asociada al usuario destino
-        Long toUserId = getUserIdByEmail(toEmail);
+        Long toUserId = userDirectoryClient.getUserIdByEmail(toEmail);
+        if (toUserId == null) {
+            throw new IllegalArgumentException("Destination wallet not found.");
+        }
         Wallet toWallet = walletRepository.findByUserId(toUserId)
                 .orElseThrow(() -> new IllegalArgumentException("Destination wallet not found."));
 
-        if (fromWallet.getId().equals(toWallet.getId())) {
-            throw new IllegalArgumentException("Cannot transfer to the same wallet.");
-        }
-
-        // Revisa si la billetera que transfiere tiene suficiente saldo
-        if (fromWallet.getBalance().compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient balance in source wallet.");
-        }
-
-        // Crea y guarda una nueva transacción de transferencia
-        Transaction transferTransaction = new Transaction();
-
-        // Transacción de salida (de la billetera del usuario)
-        transferTransaction.setWallet(fromWallet);
-        transferTransaction.setDestinationWallet(toWallet);
-        transferTransaction.setAmount(amount.negate()); // Restamos el monto de la cuenta de origen
-        transferTransaction.setTransactionType(TransactionType.TRANSFER);
-        transferTransaction.setTimestamp(Instant.now());
-        transactionRepository.save(transferTransaction);
-
-        // Transacción de entrada (de la billetera del destinatario)
-        Transaction receiveTransaction = new Transaction();
-        receiveTransaction.setWallet(toWallet);
-        receiveTransaction.setDestinationWallet(fromWallet);
-        receiveTransaction.setAmount(amount); // Añadimos el monto a la cuenta de destino
-        receiveTransaction.setTransactionType(TransactionType.TRANSFER);
-        receiveTransaction.setTimestamp(Instant.now());
-        transactionRepository.save(receiveTransaction);
-
-        // Actualizamos los saldos de las billeteras
-        fromWallet.setBalance(fromWallet.getBalance().subtract(amount));
-        toWallet.setBalance(toWallet.getBalance().add(amount));
-
-        // Guardamos los cambios en las billeteras
-        walletRepository.save(fromWallet);
-        walletRepository.save(toWallet);
+        // El motor bloquea ambas billeteras y valida el saldo dentro de su propia transacción
+        transferEngine.transfer(fromWallet.getId(), toWallet.getId(), amount);
+        walletBalanceCache.evict(fromWallet.getId());
+        walletBalanceCache.evict(toWallet.getId());
     }
 
 
-    @Transactional
+    /**
+     * Obtiene el saldo de la billetera del usuario autenticado. Es una ruta de solo lectura:
+     * se sirve desde {@link WalletBalanceCache} y nunca bloquea ni reescribe la billetera.
+     *
+     * @return saldo almacenado de la billetera
+     */
     public BigDecimal getBalance() {
         Logger logger = LoggerFactory.getLogger(WalletService.class);
 
@@ -216,11 +174,15 @@ public class WalletService {
             logger.info("Usuario autenticado (ID): {}", userId);
 
             // Busca la billetera asociada al usuario
-            Wallet wallet = walletRepository.findByUserId(userId)
+            Long walletId = walletBalanceCache.getWalletId(userId)
                     .orElseThrow(() -> new IllegalArgumentException("Wallet not found for the user."));
 
-            // Calcula y devuelve el balance
-            return recalculateBalance(wallet.getId()).getBalance();
+            // El saldo se mantiene de forma incremental; el recorrido completo es opcional
+            if (verifyBalance) {
+                walletRepository.findById(walletId).ifPresent(this::verifyBalance);
+            }
+            return walletBalanceCache.getBalance(walletId)
+                    .orElseThrow(() -> new IllegalArgumentException("Wallet not found for the user."));
         } catch (Exception e) {
             logger.error("Error al obtener el balance de la billetera", e);
             throw e;
@@ -229,19 +191,19 @@ public class WalletService {
 
 
     /**
-     * Obtiene el historial de transacciones de una billetera con soporte para paginación y búsqueda por rango de fechas.
+     * Obtiene el historial de transacciones de la billetera del usuario autenticado, combinando
+     * transacciones activas y archivadas en un único orden descendente y paginado por cursor.
      *
-     * @param page Número de página (comienza en 0).
      * @param size Tamaño de la página.
-     * @param sortBy Campo por el cual ordenar (opcional, por defecto "timestamp").
+     * @param cursor Cursor devuelto por la página anterior (opcional).
      * @param startTimestamp Inicio del rango de fechas (opcional).
      * @param endTimestamp Fin del rango de fechas (opcional).
-     * @return Página de transacciones.
+     * @return Página de transacciones y cursor de la siguiente página.
      */
-    public Page<TransactionDTO> getTransactionHistory(
-            int page,
+    @Transactional(readOnly = true)
+    public TransactionHistoryPageDTO getTransactionHistory(
             int size,
-            String sortBy,
+            String cursor,
             Instant startTimestamp,
             Instant endTimestamp
     ) {
@@ -253,69 +215,64 @@ public class WalletService {
         Wallet wallet = walletRepository.findByUserId(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Billetera no encontrada para el usuario"));
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, sortBy));
-
-        // Configura el rango de fechas si es null
-        if (startTimestamp == null) {
-            startTimestamp = Instant.EPOCH;
-        }
-        if (endTimestamp == null) {
-            endTimestamp = Instant.now();
-        }
-
-        // Busca las transacciones activas
-        Page<Transaction> activeTransactions = transactionRepository.findByWalletAndTimestampBetween(wallet, startTimestamp, endTimestamp, pageable);
-
-        // Busca las transacciones archivadas
-        Pageable archivedPageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, sortBy));
-        Page<ArchivedTransaction> archivedTransactions = archivedTransactionRepository.findByWalletAndTimestampBetween(wallet, startTimestamp, endTimestamp, archivedPageable);
-
-        // Mapea transacciones activas a DTO
-        List<TransactionDTO> allTransactionDTOs = new ArrayList<>(activeTransactions.stream()
-                .map(tx -> {
-                    String firstName = "N/A"; // Valor predeterminado
-
-                    if (tx.getDestinationWallet() != null) {
-                        Long toUserId = tx.getDestinationWallet().getUserId(); // Obtener el userId
-                        firstName = getFirstNameById(toUserId); // Llamada al servicio para obtener el nombre
-                    }
-
-                    return new TransactionDTO(
-                            tx.getTimestamp(),
-                            firstName,
-                            tx.getTransactionType().name(),
-                            tx.getAmount()
-                    );
-                })
-                .toList());
-
-        // Mapea transacciones archivadas a DTO
-        for (ArchivedTransaction archivedTransaction : archivedTransactions) {
-            String firstName = "N/A"; // Valor predeterminado
+        return loadHistoryPage(wallet.getId(), size, cursor, startTimestamp, endTimestamp);
+    }
 
-            if (archivedTransaction.getDestinationWallet() != null && archivedTransaction.getDestinationWallet().getUserId() != null) {
-                Long toUserId = archivedTransaction.getDestinationWallet().getUserId();
-                firstName = getFirstNameById(toUserId);
+    /**
+     * Registra un movimiento en el libro de transacciones y aplica su delta al saldo
+     * de la billetera con una única actualización atómica, sin recorrer el historial.
+     * @param wallet billetera afectada
+     * @param delta cantidad con signo (negativa para retiros)
+     * @param type tipo de transacción
+     * @return billetera con el saldo actualizado
+     */
+    private Wallet recordMovement(Wallet wallet, BigDecimal delta, TransactionType type) {
+        if (delta.signum() < 0) {
+            if (walletRepository.debitIfSufficient(wallet.getId(), delta.negate()) == 0) {
+                throw new IllegalArgumentException("Insufficient balance.");
             }
-
-            TransactionDTO transactionDTO = new TransactionDTO(
-                    archivedTransaction.getTimestamp(),
-                    firstName,
-                    archivedTransaction.getTransactionType().name(),
-                    archivedTransaction.getAmount()
-            );
-            allTransactionDTOs.add(transactionDTO);
+        } else {
+            walletRepository.applyBalanceDelta(wallet.getId(), delta);
         }
 
+        Transaction transaction = new Transaction();
+        transaction.setWallet(wallet);
+        transaction.setAmount(delta);
+        transaction.setTransactionType(type);
+        transaction.setTimestamp(Instant.now());
+        transactionRepository.save(transaction);
+        walletBalanceCache.evict(wallet.getId());
 
-        return new PageImpl<>(allTransactionDTOs, pageable, activeTransactions.getTotalElements() + archivedTransactions.getTotalElements());
+        Wallet updated = walletRepository.findById(wallet.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Wallet not found."));
+        if (verifyBalance) {
+            verifyBalance(updated);
+        }
+        return updated;
     }
 
-
+    /**
+     * Ruta de verificación opcional: recorre resúmenes y transacciones activas y compara
+     * el resultado con el saldo incremental, registrando cualquier discrepancia.
+     * @param wallet billetera a verificar
+     * @return true si el saldo almacenado coincide con el historial
+     */
+    public boolean verifyBalance(Wallet wallet) {
+        BigDecimal ledgerBalance = ledgerBalance(wallet);
+        if (ledgerBalance.compareTo(wallet.getBalance()) != 0) {
+            LoggerFactory.getLogger(WalletService.class).warn(
+                    "Saldo inconsistente en la billetera {}: almacenado={}, historial={}",
+                    wallet.getId(), wallet.getBalance(), ledgerBalance);
+            return false;
+        }
+        return true;
+    }
 
     /**
      * Calcula el saldo de la billetera segun el historial de transacciones
-     * Esto asegura la consistencia en el saldo de la billetera.
+     * Esto asegura la consistencia en el saldo de la billetera. Ya no forma parte de la
+     * ruta de cada petición; se usa para reparar saldos detectados como inconsistentes.
+     * El archivado de transacciones antiguas lo realiza {@link ArchivalService}.
      * @param walletId id de la billetera a recalcular
      * @return billetera con saldo recalculado
      */
@@ -324,76 +281,40 @@ public class WalletService {
         Wallet wallet = walletRepository.findById(walletId)
                 .orElseThrow(() -> new IllegalArgumentException("Wallet not found."));
 
-        Instant cutoffDate = Instant.now().minus(30, ChronoUnit.DAYS);
-        List<Transaction> transactionsToArchive = transactionRepository.findOldTransactions(wallet, cutoffDate);
-
-        if (!transactionsToArchive.isEmpty()) {
-            archiveTransactions(wallet, transactionsToArchive);
-        }
-
-        BigDecimal summarizedBalance = transactionSummaryRepository.findByWallet(wallet)
-                .stream()
-                .map(TransactionSummary::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal recentTransactionsBalance = transactionRepository.findRecentTransactions(wallet, cutoffDate)
-                .stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal recalculatedBalance = summarizedBalance.add(recentTransactionsBalance);
-
-        wallet.setBalance(recalculatedBalance);
+        wallet.setBalance(ledgerBalance(wallet));
+        walletBalanceCache.evict(walletId);
         return walletRepository.save(wallet);
     }
 
+    /**
+     * Suma los resúmenes archivados y las transacciones activas de la billetera.
+     * Ambas sumas se resuelven en la base de datos sin materializar entidades.
+     */
+    private BigDecimal ledgerBalance(Wallet wallet) {
+        BigDecimal summarizedBalance = transactionSummaryRepository.sumTotalAmountByWalletId(wallet.getId());
+        BigDecimal activeTransactionsBalance = transactionRepository.sumAmountByWalletId(wallet.getId());
+        return summarizedBalance.add(activeTransactionsBalance);
+    }
 
-    @Transactional
-    public void archiveTransactions(Wallet wallet, List<Transaction> transactionsToArchive) {
-        // Agrupa las transacciones por período (ejemplo: mensual)
-        Map<String, List<Transaction>> groupedTransactions = transactionsToArchive.stream()
-                .collect(Collectors.groupingBy(transaction -> {
-                    Instant timestamp = transaction.getTimestamp();
-                    return timestamp.toString().substring(0, 7); 
-                }));
-
-        // Crea resúmenes de las transacciones
-        List<TransactionSummary> summaries = groupedTransactions.values().stream()
-                .map(grouped -> {
-
-                    TransactionSummary summary = new TransactionSummary();
-                    summary.setWallet(wallet);
-                    summary.setStartDate(grouped.get(0).getTimestamp());
-                    summary.setEndDate(grouped.get(grouped.size() - 1).getTimestamp());
-                    summary.setTotalAmount(grouped.stream()
-                            .map(Transaction::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add));
-
-                    return summary;
-                })
-                .toList();
-
-        // Guarda los resúmenes en la tabla de resúmenes
-        transactionSummaryRepository.saveAll(summaries);
-
-        // Mueve transacciones a la tabla de archivo
-        List<ArchivedTransaction> archivedTransactions = transactionsToArchive.stream()
-                .map(transaction -> {
-                    ArchivedTransaction archivedTransaction = new ArchivedTransaction();
-                    archivedTransaction.setWallet(transaction.getWallet());
-                    archivedTransaction.setAmount(transaction.getAmount());
-                    archivedTransaction.setTransactionType(transaction.getTransactionType());
-                    archivedTransaction.setTimestamp(transaction.getTimestamp());
-                    archivedTransaction.setArchivedAt(Instant.now());
-                    archivedTransaction.setDestinationWallet(transaction.getDestinationWallet());
-                    return archivedTransaction;
-                })
-                .toList();
-
-        archivedTransactionRepository.saveAll(archivedTransactions);
+    /**
+     * Obtiene el número de transacciones y el importe total por tipo, combinando las
+     * transacciones activas y las archivadas.
+     * @param walletId id de la billetera
+     * @return resumen por tipo de transacción
+     */
+    @Transactional(readOnly = true)
+    public List<TransactionTypeSummaryDTO> getTransactionTypeSummary(Long walletId) {
+        if (!walletRepository.existsById(walletId)) {
+            throw new IllegalArgumentException("Wallet not found.");
+        }
 
-        // Elimina las transacciones antiguas de la tabla principal
-        transactionRepository.deleteAll(transactionsToArchive);
+        Map<TransactionType, TransactionTypeSummaryDTO> byType = new EnumMap<>(TransactionType.class);
+        Stream.concat(
+                transactionRepository.summarizeByTransactionType(walletId).stream(),
+                archivedTransactionRepository.summarizeByTransactionType(walletId).stream()
+        ).forEach(row -> byType.merge(row.getTransactionType(), row, (a, b) -> new TransactionTypeSummaryDTO(
+                a.getTransactionType(), a.getCount() + b.getCount(), a.getTotalAmount().add(b.getTotalAmount()))));
+        return new ArrayList<>(byType.values());
     }
 
     public Wallet createWallet() {
@@ -431,53 +352,23 @@ public class WalletService {
      * @param toWalletId id de la billetera a la que sera transferido el saldo
      * @param amount cantidad de saldo a transferir
      */
-    @Transactional
     public void transfer(Long fromWalletId, Long toWalletId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Transfer amount must be greater than zero.");
-        }
-
-        if (fromWalletId.equals(toWalletId)) {
-            throw new IllegalArgumentException("Cannot transfer to the same wallet.");
-        }
-
-        Wallet fromWallet = walletRepository.findById(fromWalletId)
-                .orElseThrow(() -> new IllegalArgumentException("Wallet not found."));
-        Wallet toWallet = walletRepository.findById(toWalletId)
-                .orElseThrow(() -> new IllegalArgumentException("Destination wallet not found."));
-
-        // Revisa si la billetera que transfiere tiene suficiente saldo
-        if (fromWallet.getBalance().compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient balance in source wallet.");
-        }
+        transferEngine.transfer(fromWalletId, toWalletId, amount);
+        walletBalanceCache.evict(fromWalletId);
+        walletBalanceCache.evict(toWalletId);
+    }
 
-        // Crea y guarda una nueva transacción de transferencia
-        Transaction transferTransaction = new Transaction();
-
-        // Transacción de salida (de la billetera del usuario)
-        transferTransaction.setWallet(fromWallet);
-        transferTransaction.setDestinationWallet(toWallet);
-        transferTransaction.setAmount(amount.negate()); // Restamos el monto de la cuenta de origen
-        transferTransaction.setTransactionType(TransactionType.TRANSFER);
-        transferTransaction.setTimestamp(Instant.now());
-        transactionRepository.save(transferTransaction);
-
-        // Transacción de entrada (de la billetera del destinatario)
-        Transaction receiveTransaction = new Transaction();
-        receiveTransaction.setWallet(toWallet);
-        receiveTransaction.setDestinationWallet(fromWallet);
-        receiveTransaction.setAmount(amount); // Añadimos el monto a la cuenta de destino
-        receiveTransaction.setTransactionType(TransactionType.TRANSFER);
-        receiveTransaction.setTimestamp(Instant.now());
-        transactionRepository.save(receiveTransaction);
-
-        // Actualizamos los saldos de las billeteras
-        fromWallet.setBalance(fromWallet.getBalance().subtract(amount));
-        toWallet.setBalance(toWallet.getBalance().add(amount));
-
-        // Guardamos los cambios en las billeteras
-        walletRepository.save(fromWallet);
-        walletRepository.save(toWallet);
+    /**
+     * Ejecuta varias transferencias desde una billetera en una sola transacción (pagos y repartos).
+     * @param fromWalletId id de la billetera de origen
+     * @param legs destino e importe de cada tramo
+     * @return resultado por tramo
+     */
+    public BatchTransferResultDTO transferBatch(Long fromWalletId, List<TransferLegDTO> legs) {
+        BatchTransferResultDTO result = transferEngine.transferBatch(fromWalletId, legs);
+        walletBalanceCache.evict(fromWalletId);
+        legs.forEach(leg -> walletBalanceCache.evict(leg.getToWalletId()));
+        return result;
     }
 
     /**
@@ -496,48 +387,48 @@ public class WalletService {
         Wallet wallet = walletRepository.findById(walletId)
                 .orElseThrow(() -> new IllegalArgumentException("Billetera no encontrada para el usuario"));
 
-        // Revisa si la billetera tiene suficiente saldo
-        BigDecimal currentBalance = wallet.getBalance();
-        if (currentBalance.compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient balance.");
-        }
-
-        // Crea y guarda la transacción
-        Transaction transaction = new Transaction();
-        transaction.setWallet(wallet);
-        transaction.setAmount(amount.negate());
-        transaction.setTransactionType(TransactionType.WITHDRAWAL);
-        transaction.setTimestamp(Instant.now());
-        transactionRepository.save(transaction);
-
-        // Recalcula el saldo de la billetera
-        return recalculateBalance(wallet.getId());
+        // Descuenta el saldo (si es suficiente) y registra la transacción
+        return recordMovement(wallet, amount.negate(), TransactionType.WITHDRAWAL);
     }
 
     /**
-     * Obtiene el historial de transacciones de una billetera con soporte para paginación y búsqueda por rango de fechas.
+     * Obtiene el historial de transacciones de una billetera, combinando transacciones activas
+     * y archivadas en un único orden descendente y paginado por cursor.
      *
-     * @param page Número de página (comienza en 0).
+     * @param walletId id de la billetera.
      * @param size Tamaño de la página.
-     * @param sortBy Campo por el cual ordenar (opcional, por defecto "timestamp").
+     * @param cursor Cursor devuelto por la página anterior (opcional).
      * @param startTimestamp Inicio del rango de fechas (opcional).
      * @param endTimestamp Fin del rango de fechas (opcional).
-     * @return Página de transacciones.
+     * @return Página de transacciones y cursor de la siguiente página.
      */
-    public PageImpl<TransactionDTO> getTransactionHistory(
+    @Transactional(readOnly = true)
+    public TransactionHistoryPageDTO getTransactionHistory(
             Long walletId,
-            int page,
             int size,
-            String sortBy,
+            String cursor,
             Instant startTimestamp,
             Instant endTimestamp
     ) {
+        if (!walletRepository.existsById(walletId)) {
+            throw new IllegalArgumentException("Billetera no encontrada para el usuario");
+        }
+        return loadHistoryPage(walletId, size, cursor, startTimestamp, endTimestamp);
+    }
 
-        // Obtiene la billetera asociada al usuario
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new IllegalArgumentException("Billetera no encontrada para el usuario"));
-
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, sortBy));
+    /**
+     * Carga una página de la vista unificada del historial y la mapea a DTO.
+     */
+    private TransactionHistoryPageDTO loadHistoryPage(
+            Long walletId,
+            int size,
+            String cursor,
+            Instant startTimestamp,
+            Instant endTimestamp
+    ) {
+        if (size <= 0 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_HISTORY_PAGE_SIZE + ".");
+        }
 
         // Configura el rango de fechas si es null
         if (startTimestamp == null) {
@@ -547,95 +438,38 @@ public class WalletService {
             endTimestamp = Instant.now();
         }
 
-        // Busca las transacciones activas
-        Page<Transaction> activeTransactions = transactionRepository.findByWalletAndTimestampBetween(wallet, startTimestamp, endTimestamp, pageable);
+        // Se pide una fila extra para saber si existe una página siguiente
+        LedgerCursor position = cursor == null || cursor.isBlank() ? null : LedgerCursor.decode(cursor);
+        List<LedgerEntry> entries = ledgerHistoryRepository.findPage(walletId, startTimestamp, endTimestamp, position, size + 1);
+        boolean hasMore = entries.size() > size;
+        if (hasMore) {
+            entries = entries.subList(0, size);
+        }
 
-        // Busca las transacciones archivadas
-        Pageable archivedPageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, sortBy));
-        Page<ArchivedTransaction> archivedTransactions = archivedTransactionRepository.findByWalletAndTimestampBetween(wallet, startTimestamp, endTimestamp, archivedPageable);
+        // Resuelve los nombres de todas las contrapartes de la página con una sola llamada
+        Map<Long, String> counterpartyNames = userDirectoryClient.getFirstNamesByIds(entries.stream()
+                .map(LedgerEntry::getCounterpartyUserId)
+                .filter(Objects::nonNull)
+                .toList());
 
-        // Mapea transacciones activas a DTO
-        List<TransactionDTO> allTransactionDTOs = new ArrayList<>(activeTransactions.stream()
-                .map(tx -> {
+        List<TransactionDTO> content = entries.stream()
+                .map(entry -> {
                     String firstName = "N/A"; // Valor predeterminado
 
-                    if (tx.getDestinationWallet() != null) {
-                        Long userId = tx.getDestinationWallet().getUserId(); // Obtener el userId
-                        firstName = getFirstNameById(userId); // Llamada al servicio para obtener el nombre
+                    if (entry.getCounterpartyUserId() != null) {
+                        firstName = counterpartyNames.getOrDefault(entry.getCounterpartyUserId(), "N/A");
                     }
 
                     return new TransactionDTO(
-                            tx.getTimestamp(),
+                            entry.getTimestamp(),
                             firstName,
-                            tx.getTransactionType().name(),
-                            tx.getAmount()
+                            entry.getTransactionType().name(),
+                            entry.getAmount()
                     );
                 })
-                .toList());
-
-        // Mapea transacciones archivadas a DTO
-        for (ArchivedTransaction archivedTransaction : archivedTransactions) {
-            String firstName = "N/A"; // Valor predeterminado
-
-            if (archivedTransaction.getDestinationWallet() != null && archivedTransaction.getDestinationWallet().getUserId() != null) {
-                Long userId = archivedTransaction.getDestinationWallet().getUserId();
-                firstName = getFirstNameById(userId);
-            }
-
-            TransactionDTO transactionDTO = new TransactionDTO(
-                    archivedTransaction.getTimestamp(),
-                    firstName,
-                    archivedTransaction.getTransactionType().name(),
-                    archivedTransaction.getAmount()
-            );
-            allTransactionDTOs.add(transactionDTO);
-        }
-
-
-        return new PageImpl<>(allTransactionDTOs, pageable, activeTransactions.getTotalElements() + archivedTransactions.getTotalElements());
-    }
-
-    public String getFirstNameById(Long userId) {
-        String url = authUrl + "/internal/wallet/get-user-by-id/" + userId;
-
-        // Configurar los headers con el token
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(jwtUtil.generateServiceToken());
-
-        // Crear la entidad HTTP
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-        // Hacer la solicitud GET
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-        return response.getBody();
-    }
-
-    public Long getUserIdByEmail(String email) {
-        try{
-            String url = authUrl + "/internal/wallet/get-id-by-email?email=" + email;
-
-            // Configurar los headers con el token
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(jwtUtil.generateServiceToken());
-            // Imprimir los headers para ver si el token está presente
-            System.out.println("Authorization Header: " + headers.getFirst(HttpHeaders.AUTHORIZATION));
-
-
-            // Crear la entidad HTTP
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-            // Hacer la solicitud GET
-            ResponseEntity<Long> response = restTemplate.exchange(url, HttpMethod.GET, entity, Long.class);
+                .toList();
 
-            return response.getBody();
-        } catch (HttpClientErrorException | HttpServerErrorException ex) {
-            System.out.println("Error al hacer la solicitud: " + ex.getMessage());
-            System.out.println("Detalles del error: " + ex.getResponseBodyAsString());
-            throw new RuntimeException("Error al hacer la solicitud", ex);
-        } catch (Exception e) {
-            System.out.println("Error general: " + e.getMessage());
-            throw new RuntimeException("Error al hacer la solicitud", e);
-        }
+        String nextCursor = hasMore ? LedgerCursor.of(entries.get(entries.size() - 1)).encode() : null;
+        return new TransactionHistoryPageDTO(content, nextCursor);
     }
 }
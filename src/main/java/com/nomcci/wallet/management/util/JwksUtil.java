@@ -1,12 +1,15 @@
 package com.nomcci.wallet.management.util;
 
-import java.security.KeyFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
-import java.security.spec.X509EncodedKeySpec;
+import java.security.interfaces.RSAPublicKey;
 import java.util.Base64;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -21,14 +24,23 @@ public class JwksUtil {
      * @return Un mapa representando el JWKS.
      */
     public static Map<String, Object> generateJWKS() {
+        return generateJWKS(RsaKeyUtil.loadPublicKey());
+    }
+
+    /**
+     * Genera el JWKS para una llave pública ya cargada.
+     *
+     * @param publicKey La llave pública.
+     * @return Un mapa representando el JWKS.
+     */
+    public static Map<String, Object> generateJWKS(PublicKey publicKey) {
         try {
-            PublicKey publicKey = RsaKeyUtil.loadPublicKey(); // Carga la llave pública
             String kid = generateKID(publicKey); // Genera el KID dinámico basado en el hash de la llave pública
             String modulus = getModulus(publicKey);
             String exponent = getExponent(publicKey);
 
             // Construcción del JWKS
-            Map<String, String> key = new HashMap<>();
+            Map<String, String> key = new LinkedHashMap<>();
             key.put("kty", "RSA");
             key.put("kid", kid);
             key.put("use", "sig");
@@ -43,6 +55,25 @@ public class JwksUtil {
         }
     }
 
+    /**
+     * Serializa el JWKS una sola vez y calcula su ETag fuerte (hash SHA-256 del contenido),
+     * para servirlo sin volver a leer ni procesar la llave en cada petición.
+     *
+     * @param publicKey La llave pública.
+     * @return El documento JWKS serializado junto con su ETag.
+     */
+    public static JwksDocument precompute(PublicKey publicKey) {
+        try {
+            byte[] body = new ObjectMapper().writeValueAsBytes(generateJWKS(publicKey));
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+            return new JwksDocument(body, etag);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            logger.log(Level.SEVERE, "Error al serializar el JWKS", e);
+            throw new RuntimeException("Error al serializar el JWKS", e);
+        }
+    }
+
     /**
      * Genera un KID dinámico a partir del hash de la llave pública.
      *
@@ -67,16 +98,8 @@ public class JwksUtil {
      * @return El módulo codificado.
      */
     private static String getModulus(PublicKey publicKey) {
-        try {
-            X509EncodedKeySpec spec = new X509EncodedKeySpec(publicKey.getEncoded());
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-            java.security.interfaces.RSAPublicKey rsaPublicKey =
-                    (java.security.interfaces.RSAPublicKey) keyFactory.generatePublic(spec);
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(rsaPublicKey.getModulus().toByteArray());
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error al obtener el módulo de la llave pública", e);
-            throw new RuntimeException("Error al obtener el módulo de la llave pública", e);
-        }
+        RSAPublicKey rsaPublicKey = (RSAPublicKey) publicKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(rsaPublicKey.getModulus().toByteArray());
     }
 
     /**
@@ -86,15 +109,16 @@ public class JwksUtil {
      * @return El exponente codificado.
      */
     private static String getExponent(PublicKey publicKey) {
-        try {
-            X509EncodedKeySpec spec = new X509EncodedKeySpec(publicKey.getEncoded());
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-            java.security.interfaces.RSAPublicKey rsaPublicKey =
-                    (java.security.interfaces.RSAPublicKey) keyFactory.generatePublic(spec);
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(rsaPublicKey.getPublicExponent().toByteArray());
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error al obtener el exponente de la llave pública", e);
-            throw new RuntimeException("Error al obtener el exponente de la llave pública", e);
-        }
+        RSAPublicKey rsaPublicKey = (RSAPublicKey) publicKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(rsaPublicKey.getPublicExponent().toByteArray());
+    }
+
+    /**
+     * JWKS serializado y su ETag.
+     *
+     * @param body contenido JSON
+     * @param etag ETag fuerte, entre comillas
+     */
+    public record JwksDocument(byte[] body, String etag) {
     }
-}
\ No newline at end of file
+}
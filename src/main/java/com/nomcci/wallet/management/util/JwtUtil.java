@@ -7,46 +7,104 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.PrivateKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Emite el token de servicio con el que Wallet se autentica ante otros servicios.
+ * El token firmado se reutiliza hasta poco antes de su expiración: la firma RSA se hace
+ * una vez por ventana de renovación y no en cada llamada saliente.
+ */
 @Component
 public class JwtUtil {
 
     private final PrivateKey privateKey;
+    private final Clock clock;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile SignedToken current;
 
     @Value("${issuer.url}")
     private String issuerUrl;
 
+    @Value("${wallet.service-token.ttl:PT36S}")
+    private Duration tokenTtl = Duration.ofSeconds(36);
+
+    @Value("${wallet.service-token.refresh-margin:PT5S}")
+    private Duration refreshMargin = Duration.ofSeconds(5);
+
     public JwtUtil() {
         RsaKeyUtil.generateKeyPair(); // Genera las claves si no existen
         this.privateKey = RsaKeyUtil.loadPrivateKey();
+        this.clock = Clock.systemUTC();
+    }
+
+    JwtUtil(PrivateKey privateKey, Clock clock) {
+        this.privateKey = privateKey;
+        this.clock = clock;
     }
 
     /**
-     * Genera un token JWT para el servicio Wallet.
+     * Devuelve un token JWT vigente para el servicio Wallet, firmándolo solo si el
+     * token en uso está por expirar. Las llamadas concurrentes reciben el mismo token.
      *
      * @return Token JWT.
      */
     public String generateServiceToken() {
+        SignedToken token = current;
+        if (token != null && clock.instant().isBefore(token.refreshAt())) {
+            return token.value();
+        }
+
+        refreshLock.lock();
         try {
-            long expirationTime = 36000;
-            Date now = new Date();
-            Date expirationDate = new Date(now.getTime() + expirationTime);
+            // Otro hilo pudo renovarlo mientras se esperaba el candado
+            token = current;
+            Instant now = clock.instant();
+            if (token == null || !now.isBefore(token.refreshAt())) {
+                token = new SignedToken(signServiceToken(now), refreshAt(now));
+                current = token;
+            }
+            return token.value();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
 
-            String jwt= Jwts.builder()
+    /**
+     * Firma un token nuevo con la clave privada del servicio.
+     *
+     * @param now instante de emisión
+     * @return Token JWT firmado.
+     */
+    String signServiceToken(Instant now) {
+        try {
+            return Jwts.builder()
                     .setSubject("service-token")
                     .setAudience("wallet-service")
-                    .setIssuedAt(now)
-                    .setExpiration(expirationDate)
+                    .setIssuedAt(Date.from(now))
+                    .setExpiration(Date.from(now.plus(tokenTtl)))
                     .setIssuer(issuerUrl)
                     .claim("scope", "SCOPE_WALLET_ACCESS")
                     .signWith(privateKey, SignatureAlgorithm.RS256)
                     .compact();
-            System.out.println(jwt);
-            return jwt;
         } catch (JwtException e) {
             throw new RuntimeException("Error al generar el token JWT para el servicio", e);
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Momento a partir del cual el token se renueva. Si el margen no cabe en la vigencia
+     * configurada, se renueva a mitad de la vigencia.
+     */
+    private Instant refreshAt(Instant issuedAt) {
+        Duration margin = refreshMargin.compareTo(tokenTtl) < 0 ? refreshMargin : tokenTtl.dividedBy(2);
+        return issuedAt.plus(tokenTtl).minus(margin);
+    }
+
+    private record SignedToken(String value, Instant refreshAt) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.nomcci.wallet.management.util;
+
+import com.nomcci.wallet.management.model.LedgerEntry;
+import com.nomcci.wallet.management.model.LedgerSource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Posición opaca dentro del historial de una billetera: (timestamp, origen, id) de la última
+ * fila entregada. El origen desempata filas de ambas tablas con el mismo timestamp, ya que
+ * sus ids provienen de secuencias distintas.
+ */
+@Getter
+@AllArgsConstructor
+public class LedgerCursor {
+
+    private final Instant timestamp;
+    private final LedgerSource source;
+    private final long id;
+
+    public static LedgerCursor of(LedgerEntry entry) {
+        return new LedgerCursor(entry.getTimestamp(), entry.getSource(), entry.getId());
+    }
+
+    /**
+     * Codifica el cursor en un token seguro para URL.
+     */
+    public String encode() {
+        String raw = timestamp.getEpochSecond() + "." + timestamp.getNano() + ":" + source.name() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token generado por {@link #encode()}.
+     *
+     * @param token token recibido del cliente
+     * @return cursor decodificado
+     */
+    public static LedgerCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            String[] instant = parts[0].split("\\.");
+            return new LedgerCursor(
+                    Instant.ofEpochSecond(Long.parseLong(instant[0]), Long.parseLong(instant[1])),
+                    LedgerSource.valueOf(parts[1]),
+                    Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor.", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+-- Esquema base del servicio de billeteras, equivalente al que generaba ddl-auto=update.
+-- Usa IF NOT EXISTS para poder aplicarse sobre bases ya creadas por Hibernate.
+
+CREATE SEQUENCE IF NOT EXISTS wallets_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS transactions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS archived_transactions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS transaction_summaries_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS wallets (
+    id       BIGINT         NOT NULL PRIMARY KEY,
+    user_id  BIGINT,
+    balance  NUMERIC(38, 2) NOT NULL,
+    currency VARCHAR(255)   NOT NULL,
+    active   BOOLEAN        NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id                    BIGINT                      NOT NULL PRIMARY KEY,
+    wallet_id             BIGINT                      NOT NULL REFERENCES wallets (id),
+    destination_wallet_id BIGINT                      REFERENCES wallets (id),
+    amount                NUMERIC(38, 2)              NOT NULL,
+    transaction_type      VARCHAR(255)                NOT NULL,
+    timestamp             TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS archived_transactions (
+    id                    BIGINT                      NOT NULL PRIMARY KEY,
+    wallet_id             BIGINT                      NOT NULL REFERENCES wallets (id),
+    destination_wallet_id BIGINT                      REFERENCES wallets (id),
+    amount                NUMERIC(38, 2)              NOT NULL,
+    transaction_type      VARCHAR(255)                NOT NULL,
+    timestamp             TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    archived_at           TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS transaction_summaries (
+    id           BIGINT                      NOT NULL PRIMARY KEY,
+    wallet_id    BIGINT                      NOT NULL REFERENCES wallets (id),
+    period       VARCHAR(7),
+    granularity  VARCHAR(5),
+    total_amount NUMERIC(38, 2)              NOT NULL,
+    start_date   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    end_date     TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- Las bases creadas por Hibernate ya tienen la tabla de resúmenes, pero sin periodo ni granularidad.
+-- Los resúmenes previos quedan con ambas columnas a NULL: ArchivalService los integra en el resumen
+-- mensual de su periodo al archivar la billetera, y los NULL no chocan en el índice único.
+ALTER TABLE transaction_summaries ADD COLUMN IF NOT EXISTS period VARCHAR(7);
+ALTER TABLE transaction_summaries ADD COLUMN IF NOT EXISTS granularity VARCHAR(5);
+
+-- Clave del upsert de resúmenes (ON CONFLICT (wallet_id, period))
+CREATE UNIQUE INDEX IF NOT EXISTS uk_transaction_summaries_wallet_period ON transaction_summaries (wallet_id, period);
+
+-- Las bases creadas con columnas IDENTITY ya tienen filas: las secuencias arrancan detrás del mayor id
+SELECT setval('wallets_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM wallets) + 50, (SELECT last_value FROM wallets_seq)));
+SELECT setval('transactions_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM transactions) + 50, (SELECT last_value FROM transactions_seq)));
+SELECT setval('archived_transactions_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM archived_transactions) + 50, (SELECT last_value FROM archived_transactions_seq)));
+SELECT setval('transaction_summaries_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM transaction_summaries) + 50, (SELECT last_value FROM transaction_summaries_seq)));
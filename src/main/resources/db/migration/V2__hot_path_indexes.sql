@@ -0,0 +1,15 @@
+-- Índices de las consultas calientes. Se crean CONCURRENTLY para no bloquear escrituras
+-- en tablas con datos, por eso esta migración corre fuera de transacción (ver .sql.conf).
+
+-- Historial paginado por (timestamp, id) descendente y selección de filas a archivar por billetera;
+-- las columnas incluidas permiten resolver la página solo con el índice
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_wallet_timestamp
+    ON transactions (wallet_id, timestamp DESC, id DESC)
+    INCLUDE (amount, transaction_type, destination_wallet_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_archived_transactions_wallet_timestamp
+    ON archived_transactions (wallet_id, timestamp DESC, id DESC)
+    INCLUDE (amount, transaction_type, destination_wallet_id);
+
+-- findByUserId se ejecuta en cada petición autenticada; un usuario tiene una sola billetera
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_wallets_user_id ON wallets (user_id);
@@ -0,0 +1,56 @@
+-- archived_transactions pasa a ser una tabla particionada por mes según el timestamp de la
+-- transacción original: las consultas de historial por rango de fechas solo leen las particiones
+-- del rango y la retención se aplica separando y eliminando particiones completas.
+-- Las particiones futuras las crea ArchivePartitionMaintenance con antelación; la partición
+-- por defecto solo recoge filas de meses que aún no tienen partición propia.
+
+ALTER TABLE archived_transactions RENAME TO archived_transactions_legacy;
+ALTER TABLE archived_transactions_legacy RENAME CONSTRAINT archived_transactions_pkey TO archived_transactions_legacy_pkey;
+ALTER INDEX IF EXISTS idx_archived_transactions_wallet_timestamp RENAME TO idx_archived_transactions_legacy_wallet_timestamp;
+
+-- La clave primaria de una tabla particionada debe incluir la columna de partición
+CREATE TABLE archived_transactions (
+    id                    BIGINT                      NOT NULL,
+    wallet_id             BIGINT                      NOT NULL REFERENCES wallets (id),
+    destination_wallet_id BIGINT                      REFERENCES wallets (id),
+    amount                NUMERIC(38, 2)              NOT NULL,
+    transaction_type      VARCHAR(255)                NOT NULL,
+    timestamp             TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    archived_at           TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- Se propaga a cada partición existente y futura
+CREATE INDEX idx_archived_transactions_wallet_timestamp
+    ON archived_transactions (wallet_id, timestamp DESC, id DESC)
+    INCLUDE (amount, transaction_type, destination_wallet_id);
+
+CREATE TABLE archived_transactions_default PARTITION OF archived_transactions DEFAULT;
+
+-- Una partición por mes (UTC) desde la fila más antigua que pueda llegar al archivo hasta tres
+-- meses por delante. Se recorre la tabla de transacciones una sola vez, durante la migración.
+DO $$
+DECLARE
+    partition_month DATE;
+    last_month      DATE := date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '3 months';
+BEGIN
+    SELECT date_trunc('month', LEAST(
+                   (SELECT MIN(timestamp) FROM archived_transactions_legacy),
+                   (SELECT MIN(timestamp) FROM transactions),
+                   now()) AT TIME ZONE 'UTC')
+      INTO partition_month;
+
+    WHILE partition_month <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF archived_transactions FOR VALUES FROM (%L) TO (%L)',
+                       'archived_transactions_p' || to_char(partition_month, 'YYYY_MM'),
+                       to_char(partition_month, 'YYYY-MM-DD') || ' 00:00:00+00',
+                       to_char(partition_month + INTERVAL '1 month', 'YYYY-MM-DD') || ' 00:00:00+00');
+        partition_month := partition_month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO archived_transactions (id, wallet_id, destination_wallet_id, amount, transaction_type, timestamp, archived_at)
+SELECT id, wallet_id, destination_wallet_id, amount, transaction_type, timestamp, archived_at
+  FROM archived_transactions_legacy;
+
+DROP TABLE archived_transactions_legacy;
@@ -0,0 +1,14 @@
+-- Respuestas de las peticiones con Idempotency-Key. Una fila sin status_code es una
+-- petición original todavía en curso; las filas se purgan al superar wallet.idempotency.ttl.
+
+CREATE TABLE idempotency_keys (
+    id            VARCHAR(300)                NOT NULL PRIMARY KEY,
+    request_hash  VARCHAR(64)                 NOT NULL,
+    status_code   INTEGER,
+    content_type  VARCHAR(255),
+    response_body TEXT,
+    created_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    completed_at  TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
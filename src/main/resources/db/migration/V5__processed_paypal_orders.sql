@@ -0,0 +1,9 @@
+-- Órdenes de PayPal ya acreditadas. La fila se inserta en la misma transacción que el depósito,
+-- así que una orden no se acredita dos veces aunque su clave de idempotencia ya se haya purgado.
+
+CREATE TABLE processed_paypal_orders (
+    order_id     VARCHAR(255)                NOT NULL PRIMARY KEY,
+    wallet_id    BIGINT                      NOT NULL REFERENCES wallets (id),
+    amount       NUMERIC(38, 2)              NOT NULL,
+    processed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
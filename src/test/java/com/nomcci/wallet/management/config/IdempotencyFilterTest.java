@@ -0,0 +1,224 @@
+package com.nomcci.wallet.management.config;
+
+import com.nomcci.wallet.management.model.IdempotencyRecord;
+import com.nomcci.wallet.management.repository.IdempotencyRecordRepository;
+import com.nomcci.wallet.management.service.IdempotencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({IdempotencyFilter.class, IdempotencyStore.class, SimpleMeterRegistry.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyFilterTest {
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private int statusToReturn = 200;
+    private String bodySeenByController;
+
+    // Simula el controlador: cada ejecución mueve dinero y devuelve el número de ejecución
+    private final FilterChain chain = (request, response) -> {
+        int execution = executions.incrementAndGet();
+        bodySeenByController = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        ((HttpServletResponse) response).setStatus(statusToReturn);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"execution\":" + execution + "}");
+    };
+
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository.deleteAll();
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject("41").build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void retriesWithTheSameKeyReplayTheStoredResponse() throws Exception {
+        MockHttpServletResponse first = perform(withdraw("key-1", "10"));
+        MockHttpServletResponse retry = perform(withdraw("key-1", "10"));
+
+        assertEquals(1, executions.get());
+        assertEquals(200, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+
+        // La respuesta también queda en la tabla para sobrevivir a reinicios
+        IdempotencyRecord stored = idempotencyRecordRepository.findById("user:41:key-1").orElseThrow();
+        assertEquals(200, stored.getStatusCode());
+        assertEquals(first.getContentAsString(), stored.getResponseBody());
+    }
+
+    @Test
+    void reusingAKeyForADifferentRequestIsRejected() throws Exception {
+        perform(withdraw("key-2", "10"));
+        MockHttpServletResponse reused = perform(withdraw("key-2", "99"));
+
+        assertEquals(1, executions.get());
+        assertEquals(422, reused.getStatus());
+    }
+
+    @Test
+    void serverErrorsReleaseTheKeySoTheClientCanRetry() throws Exception {
+        statusToReturn = 500;
+        perform(withdraw("key-3", "10"));
+        statusToReturn = 200;
+        MockHttpServletResponse retry = perform(withdraw("key-3", "10"));
+
+        assertEquals(2, executions.get());
+        assertEquals("{\"execution\":2}", retry.getContentAsString());
+    }
+
+    @Test
+    void requestsWithoutKeyAreNotDeduplicated() throws Exception {
+        perform(withdraw(null, "10"));
+        perform(withdraw(null, "10"));
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void retriesOfAnUnfinishedRequestAreNeverExecutedAgain() throws Exception {
+        // El reintento llega cuando la reserva ya superó el tiempo de espera, como tras una caída
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        FilterChain slowChain = (request, response) -> {
+            executions.incrementAndGet();
+            IdempotencyRecord pending = idempotencyRecordRepository.findById("user:41:key-7").orElseThrow();
+            pending.setCreatedAt(Instant.now().minus(Duration.ofHours(1)));
+            idempotencyRecordRepository.save(pending);
+            idempotencyFilter.doFilter(withdraw("key-7", "10"), retry, chain);
+        };
+        idempotencyFilter.doFilter(withdraw("key-7", "10"), new MockHttpServletResponse(), slowChain);
+
+        assertEquals(1, executions.get());
+        assertEquals(409, retry.getStatus());
+    }
+
+    @Test
+    void paypalReturnIsDeduplicatedByOrderToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallet/payments/success");
+        request.setParameter("token", "ORDER-1");
+        perform(request);
+        MockHttpServletRequest again = new MockHttpServletRequest("GET", "/api/wallet/payments/success");
+        again.setParameter("token", "ORDER-1");
+        MockHttpServletResponse replay = perform(again);
+
+        assertEquals(1, executions.get());
+        assertEquals("true", replay.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void paypalReturnIgnoresTheIdempotencyKeyHeader() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallet/payments/success");
+        request.setParameter("token", "ORDER-2");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-5");
+        perform(request);
+        // Una cabecera nueva no convierte el retorno de la misma orden en otra operación
+        MockHttpServletRequest again = new MockHttpServletRequest("GET", "/api/wallet/payments/success");
+        again.setParameter("token", "ORDER-2");
+        again.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-6");
+        MockHttpServletResponse replay = perform(again);
+
+        assertEquals(1, executions.get());
+        assertEquals("true", replay.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void batchTransfersAreFingerprintedByTheirBody() throws Exception {
+        String batch = "[{\"toWalletId\":2,\"amount\":10}]";
+        perform(batchTransfer("key-4", batch));
+        MockHttpServletResponse retry = perform(batchTransfer("key-4", batch));
+        MockHttpServletResponse otherBatch = perform(batchTransfer("key-4", "[{\"toWalletId\":3,\"amount\":10}]"));
+
+        assertEquals(1, executions.get());
+        // El filtro lee el cuerpo para la huella sin quitárselo al controlador
+        assertEquals(batch, bodySeenByController);
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(422, otherBatch.getStatus());
+    }
+
+    @Test
+    void repeatedBulkDepositsAreRejectedWithoutStoringTheStream() throws Exception {
+        String csv = "walletId,amount\n1,10\n";
+        MockHttpServletResponse first = perform(bulkDeposit("key-8", csv));
+        MockHttpServletResponse repeated = perform(bulkDeposit("key-8", csv));
+
+        assertEquals(1, executions.get());
+        assertEquals(csv, bodySeenByController);
+        assertEquals("{\"execution\":1}", first.getContentAsString());
+        assertEquals(409, repeated.getStatus());
+        // Solo queda constancia de que la clave se completó
+        IdempotencyRecord stored = idempotencyRecordRepository.findById("user:41:key-8").orElseThrow();
+        assertEquals(200, stored.getStatusCode());
+        assertNull(stored.getResponseBody());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest batchTransfer(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/wallet/admin/1/transfers");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        return request;
+    }
+
+    private static MockHttpServletRequest bulkDeposit(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/wallet/admin/deposits/bulk");
+        request.setContentType("text/csv");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        return request;
+    }
+
+    private static MockHttpServletRequest withdraw(String key, String amount) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/wallet/user/withdraw");
+        request.setParameter("amount", amount);
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,131 @@
+package com.nomcci.wallet.management.config;
+
+import com.nomcci.wallet.management.model.IdempotencyRecord;
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.IdempotencyRecordRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import com.nomcci.wallet.management.service.IdempotencyStore;
+import com.nomcci.wallet.management.service.WalletBalanceCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Una segunda base H2 en memoria hace de réplica; contiene una billetera que no existe en el
+ * primario, así que cada lectura delata a qué base fue.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReadReplicaDataSourceConfig.class, IdempotencyStore.class, WalletBalanceCache.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {
+        "wallet.datasource.replica.url=jdbc:h2:mem:walletReplica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "wallet.datasource.replica.max-staleness=PT1S",
+        // La medición programada no debe adelantarse a las pruebas; se invoca a mano
+        "wallet.datasource.replica.lag-check-interval=PT1H"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReadReplicaDataSourceConfigTest {
+
+    private static final long REPLICA_ONLY_WALLET = 990_001L;
+
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private WalletBalanceCache walletBalanceCache;
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("""
+                CREATE TABLE IF NOT EXISTS wallets (
+                    id BIGINT PRIMARY KEY, user_id BIGINT, balance NUMERIC(38, 2) NOT NULL,
+                    currency VARCHAR(255) NOT NULL, active BOOLEAN NOT NULL)
+                """);
+        replica.execute("""
+                CREATE TABLE IF NOT EXISTS idempotency_keys (
+                    id VARCHAR(300) PRIMARY KEY, request_hash VARCHAR(64) NOT NULL, status_code INTEGER,
+                    content_type VARCHAR(255), response_body TEXT, created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                    completed_at TIMESTAMP(6) WITH TIME ZONE)
+                """);
+        replica.update("MERGE INTO wallets KEY (id) VALUES (?, 1, 0, 'USD', true)", REPLICA_ONLY_WALLET);
+        ReflectionTestUtils.setField(replicaRoutingDataSource, "replicaUsable", true);
+    }
+
+    @Test
+    void readOnlyWorkGoesToTheReplicaAndWritesToThePrimary() {
+        assertTrue(walletRepository.findById(REPLICA_ONLY_WALLET).isPresent());
+        assertTrue(walletRepository.findBalanceById(REPLICA_ONLY_WALLET).isPresent());
+
+        Boolean seenByReadWrite = transactionTemplate.execute(status -> walletRepository.findById(REPLICA_ONLY_WALLET).isPresent());
+        assertFalse(seenByReadWrite);
+    }
+
+    @Test
+    void idempotencyLookupsIgnoreTheReplica() {
+        // La clave completada solo existe en el primario, como si la réplica aún no la hubiera recibido
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId("user:1:replica-lag");
+        record.setRequestHash("hash");
+        record.setStatusCode(200);
+        record.setCreatedAt(Instant.now());
+        record.setCompletedAt(Instant.now());
+        idempotencyRecordRepository.save(record);
+
+        assertTrue(idempotencyStore.find("user:1:replica-lag").isPresent());
+    }
+
+    @Test
+    void balanceCacheMissesIgnoreTheReplica() {
+        // La réplica aún tiene el saldo anterior al último depósito
+        Wallet wallet = new Wallet();
+        wallet.setUserId(2L);
+        wallet.setBalance(new BigDecimal("40.00"));
+        wallet.setCurrency("USD");
+        wallet.setActive(true);
+        Long walletId = walletRepository.save(wallet).getId();
+        new JdbcTemplate(replicaDataSource).update("MERGE INTO wallets KEY (id) VALUES (?, 2, 10, 'USD', true)", walletId);
+
+        assertEquals(new BigDecimal("40.00"), walletBalanceCache.getBalance(walletId).orElseThrow());
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaLagCannotBeMeasured() {
+        // H2 no expone las funciones de replicación de PostgreSQL: la medición falla
+        replicaRoutingDataSource.checkReplicationLag();
+
+        assertFalse(replicaRoutingDataSource.isReplicaUsable());
+        assertFalse(walletRepository.findById(REPLICA_ONLY_WALLET).isPresent());
+    }
+}
@@ -0,0 +1,90 @@
+package com.nomcci.wallet.management.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestTemplateConfigTest {
+
+    private final RestTemplateConfig config = new RestTemplateConfig();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HttpServer server;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ok", exchange -> {
+            byte[] body = "ok".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        connectionManager = config.httpConnectionManager(10, 2, Duration.ofSeconds(1), Duration.ofMillis(200),
+                Duration.ofMinutes(5), meterRegistry);
+        httpClient = config.httpClient(connectionManager, Duration.ofMillis(200), Duration.ofMillis(200),
+                Duration.ofSeconds(30));
+        restTemplate = config.restTemplate(new RestTemplateBuilder(), httpClient);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void connectionsAreReturnedToThePoolAndReused() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ok", restTemplate.getForObject(url("/ok"), String.class));
+        }
+
+        assertEquals(10, meterRegistry.get("httpcomponents.httpclient.pool.total.max").gauge().value());
+        assertEquals(0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("state", "leased").gauge().value());
+        assertEquals(1, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("state", "available").gauge().value());
+    }
+
+    @Test
+    void slowUpstreamFailsAfterTheReadTimeout() {
+        long start = System.nanoTime();
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject(url("/slow"), String.class));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1500, "Tardó " + elapsedMillis + " ms");
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
@@ -0,0 +1,149 @@
+package com.nomcci.wallet.management.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compara el rendimiento de Tomcat con su pool de hilos de plataforma (200 hilos) frente a
+ * hilos virtuales con 1000 clientes concurrentes. Cada petición simula el patrón de los endpoints
+ * de la billetera: una consulta JDBC y una llamada a un servicio de autenticación lento, ambas bloqueantes.
+ * Requiere Java 21: {@code gradle benchmark -PjavaVersion=21}.
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmarkTest {
+
+    private static final int CLIENTS = 1_000;
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+    private static final Duration JDBC_LATENCY = Duration.ofMillis(20);
+    private static final Duration AUTH_LATENCY = Duration.ofMillis(130);
+    private static final byte[] REQUEST = "GET /balance HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BODY = "{\"balance\":100.00}".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    void virtualThreadsVersusPlatformPoolAtOneThousandClients() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "Los hilos virtuales requieren Java 21");
+
+        double platform = run(false);
+        double virtual = run(true);
+
+        System.out.printf("[virtual-threads] %d clients | platform pool %,10.0f req/s | virtual %,10.0f req/s | x%.1f%n",
+                CLIENTS, platform, virtual, virtual / platform);
+        assertTrue(virtual > platform);
+    }
+
+    private double run(boolean virtualThreads) throws Exception {
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        // Lo mismo que hace Spring Boot con spring.threads.virtual.enabled=true
+        if (virtualThreads) {
+            factory.addProtocolHandlerCustomizers(handler -> handler.setExecutor(new VirtualThreadExecutor("tomcat-handler-")));
+        }
+        factory.addConnectorCustomizers(connector -> {
+            connector.setProperty("maxConnections", "10000");
+            connector.setProperty("acceptCount", "2000");
+            connector.setProperty("maxKeepAliveRequests", "-1");
+        });
+        WebServer server = factory.getWebServer(context -> context.addServlet("wallet", new BlockingServlet()).addMapping("/balance"));
+        server.start();
+
+        // Los clientes también son hilos virtuales para que el generador de carga no sea el cuello de botella
+        ExecutorService clients = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        try {
+            load(clients, server.getPort(), WARMUP);
+            return load(clients, server.getPort(), MEASUREMENT) / (double) MEASUREMENT.toSeconds();
+        } finally {
+            clients.shutdownNow();
+            server.stop();
+        }
+    }
+
+    private long load(ExecutorService clients, int port, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        LongAdder completed = new LongAdder();
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.execute(() -> {
+                // Conexión persistente por cliente, como haría un pool de keep-alive
+                try (Socket socket = new Socket("localhost", port)) {
+                    OutputStream out = socket.getOutputStream();
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    while (System.nanoTime() < deadline) {
+                        out.write(REQUEST);
+                        out.flush();
+                        readResponse(in);
+                        completed.increment();
+                    }
+                } catch (IOException e) {
+                    // La medición cuenta solo las respuestas recibidas
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await(duration.toSeconds() + 30, TimeUnit.SECONDS);
+        return completed.sum();
+    }
+
+    private static void readResponse(InputStream in) throws IOException {
+        int contentLength = 0;
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int c = in.read();
+            if (c < 0) {
+                throw new IOException("Conexión cerrada");
+            }
+            if (c != '\n') {
+                line.append((char) c);
+                continue;
+            }
+            String header = line.toString().trim();
+            line.setLength(0);
+            if (header.isEmpty()) {
+                break;
+            }
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                contentLength = Integer.parseInt(header.substring(15).trim());
+            }
+        }
+        in.readNBytes(contentLength);
+    }
+
+    private static final class BlockingServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            try {
+                Thread.sleep(JDBC_LATENCY.toMillis());
+                Thread.sleep(AUTH_LATENCY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.setContentType("application/json");
+            response.setContentLength(BODY.length);
+            response.getOutputStream().write(BODY);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.nomcci.wallet.management.repository;
+
+import com.nomcci.wallet.management.model.*;
+import com.nomcci.wallet.management.util.LedgerCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(LedgerHistoryRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class LedgerHistoryRepositoryTest {
+
+    @Autowired
+    private LedgerHistoryRepository ledgerHistoryRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void cursorPagesWalkTheMergedHistoryInOrderWithoutGapsOrDuplicates() {
+        Wallet wallet = new Wallet();
+        wallet.setUserId(7L);
+        wallet = entityManager.persist(wallet);
+        Wallet counterparty = new Wallet();
+        counterparty.setUserId(8L);
+        counterparty = entityManager.persist(counterparty);
+
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        // Timestamps repetidos dentro de cada tabla y entre tablas
+        for (int i = 0; i < 12; i++) {
+            Instant timestamp = base.plusSeconds(i / 3);
+            Transaction active = new Transaction();
+            active.setWallet(wallet);
+            active.setDestinationWallet(i % 2 == 0 ? counterparty : null);
+            active.setAmount(BigDecimal.valueOf(i));
+            active.setTransactionType(TransactionType.TRANSFER);
+            active.setTimestamp(timestamp);
+            entityManager.persist(active);
+
+            ArchivedTransaction archived = new ArchivedTransaction();
+            archived.setWallet(wallet);
+            archived.setAmount(BigDecimal.valueOf(-i));
+            archived.setTransactionType(TransactionType.DEPOSIT);
+            archived.setTimestamp(timestamp);
+            archived.setArchivedAt(Instant.now());
+            entityManager.persist(archived);
+        }
+        entityManager.flush();
+
+        Instant end = base.plusSeconds(3600);
+        List<LedgerEntry> all = ledgerHistoryRepository.findPage(wallet.getId(), Instant.EPOCH, end, null, 100);
+        assertEquals(24, all.size());
+
+        List<LedgerEntry> expected = new ArrayList<>(all);
+        expected.sort(Comparator.comparing(LedgerEntry::getTimestamp)
+                .thenComparing(LedgerEntry::getSource)
+                .thenComparing(LedgerEntry::getId)
+                .reversed());
+        assertEquals(keys(expected), keys(all));
+
+        List<LedgerEntry> paged = new ArrayList<>();
+        LedgerCursor cursor = null;
+        List<LedgerEntry> page;
+        do {
+            page = ledgerHistoryRepository.findPage(wallet.getId(), Instant.EPOCH, end, cursor, 5);
+            paged.addAll(page);
+            if (!page.isEmpty()) {
+                cursor = LedgerCursor.decode(LedgerCursor.of(page.get(page.size() - 1)).encode());
+            }
+        } while (page.size() == 5);
+
+        assertEquals(keys(all), keys(paged));
+        assertEquals(8L, all.stream()
+                .filter(entry -> entry.getSource() == LedgerSource.ACTIVE && entry.getAmount().intValue() % 2 == 0)
+                .findFirst().orElseThrow().getCounterpartyUserId());
+    }
+
+    private static List<String> keys(List<LedgerEntry> entries) {
+        return entries.stream().map(entry -> entry.getSource() + ":" + entry.getId()).toList();
+    }
+}
@@ -0,0 +1,211 @@
+package com.nomcci.wallet.management.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba con EXPLAIN que las consultas calientes usan los índices de las migraciones
+ * y no recorren tablas completas. Requiere PostgreSQL (WALLET_TEST_POSTGRES_URL).
+ */
+@DataJpaTest
+@ActiveProfiles({"test", "postgres"})
+@EnabledIfEnvironmentVariable(named = "WALLET_TEST_POSTGRES_URL", matches = ".+")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ArchivePartitionRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryPlanTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.now(ZoneOffset.UTC);
+    private static final OffsetDateTime HISTORY_START = NOW.minusDays(70);
+    private static final Pattern ARCHIVE_PARTITION_SCAN = Pattern.compile(" on (archived_transactions_\\w+)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired
+    private ArchivePartitionRepository archivePartitionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long walletId;
+
+    @BeforeEach
+    void seed() {
+        // Cada mes del rango consultado tiene su partición, así que la partición por defecto se descarta
+        List<YearMonth> partitions = archivePartitionRepository.findPartitionMonths();
+        for (YearMonth month = YearMonth.from(HISTORY_START); !month.isAfter(YearMonth.from(NOW)); month = month.plusMonths(1)) {
+            if (!partitions.contains(month)) {
+                YearMonth partitionMonth = month;
+                transactionTemplate.executeWithoutResult(status -> archivePartitionRepository.createPartition(partitionMonth));
+            }
+        }
+
+        jdbcTemplate.execute("TRUNCATE processed_paypal_orders, transaction_summaries, archived_transactions, transactions, wallets");
+        jdbcTemplate.update("""
+                INSERT INTO wallets (id, user_id, balance, currency, active)
+                SELECT nextval('wallets_seq'), g, 0, 'USD', true FROM generate_series(1, 2000) g
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (id, wallet_id, destination_wallet_id, amount, transaction_type, timestamp)
+                SELECT nextval('transactions_seq'), w.id, NULL, 1, 'DEPOSIT', now() - g * interval '1 hour'
+                  FROM wallets w CROSS JOIN generate_series(1, 50) g
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO archived_transactions (id, wallet_id, destination_wallet_id, amount, transaction_type, timestamp, archived_at)
+                SELECT nextval('archived_transactions_seq'), w.id, NULL, 1, 'DEPOSIT', now() - interval '60 days' - g * interval '1 hour', now()
+                  FROM wallets w CROSS JOIN generate_series(1, 50) g
+                """);
+        jdbcTemplate.execute("ANALYZE wallets, transactions, archived_transactions");
+        walletId = jdbcTemplate.queryForObject("SELECT id FROM wallets WHERE user_id = 1000", Long.class);
+    }
+
+    @Test
+    void walletLookupByUserUsesTheUniqueIndex() {
+        String plan = explain("SELECT * FROM wallets WHERE user_id = :userId", new MapSqlParameterSource("userId", 1000L));
+
+        assertTrue(plan.contains("uk_wallets_user_id"), plan);
+        assertNoSequentialScan(plan);
+    }
+
+    @Test
+    void historyPageUsesTheWalletTimestampIndexesOnBothTables() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("walletId", walletId)
+                .addValue("start", HISTORY_START)
+                .addValue("end", NOW)
+                .addValue("cursorTimestamp", NOW)
+                .addValue("activeIdBound", Long.MAX_VALUE)
+                .addValue("archivedIdBound", Long.MAX_VALUE)
+                .addValue("limit", 21);
+
+        String plan = explain(LedgerHistoryRepository.PAGE_QUERY, params);
+
+        assertTrue(plan.contains("idx_transactions_wallet_timestamp"), plan);
+        // Cada partición del archivo se lee por su copia del índice (wallet_id, timestamp)
+        assertFalse(archivePartitionsScanned(plan).isEmpty(), plan);
+        assertNoSequentialScan(plan);
+    }
+
+    @Test
+    void deepHistoryPageStartsTheIndexScanAtTheCursor() {
+        // Cursor a mitad del historial activo: las filas más recientes no deben leerse para descartarlas
+        Map<String, Object> cursor = jdbcTemplate.queryForMap(
+                "SELECT id, timestamp FROM transactions WHERE wallet_id = ? ORDER BY timestamp DESC, id DESC OFFSET 30 LIMIT 1",
+                walletId);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("walletId", walletId)
+                .addValue("start", HISTORY_START)
+                .addValue("end", NOW)
+                .addValue("cursorTimestamp", cursor.get("timestamp"))
+                .addValue("activeIdBound", cursor.get("id"))
+                .addValue("archivedIdBound", Long.MAX_VALUE)
+                .addValue("limit", 21);
+
+        String plan = explain("ANALYZE", LedgerHistoryRepository.PAGE_QUERY, params);
+
+        assertTrue(plan.contains("idx_transactions_wallet_timestamp"), plan);
+        assertFalse(plan.contains("Rows Removed by Filter"), plan);
+        assertNoSequentialScan(plan);
+    }
+
+    @Test
+    void historyPageOnlyScansTheArchivePartitionsOfTheRequestedRange() {
+        YearMonth month = YearMonth.from(NOW.minusDays(60));
+        OffsetDateTime start = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime end = month.atEndOfMonth().atTime(23, 59, 59).atOffset(ZoneOffset.UTC);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("walletId", walletId)
+                .addValue("start", start)
+                .addValue("end", end)
+                .addValue("cursorTimestamp", end)
+                .addValue("activeIdBound", Long.MAX_VALUE)
+                .addValue("archivedIdBound", Long.MAX_VALUE)
+                .addValue("limit", 21);
+
+        String plan = explain(LedgerHistoryRepository.PAGE_QUERY, params);
+
+        assertEquals(Set.of(ArchivePartitionRepository.partitionName(month)), archivePartitionsScanned(plan), plan);
+    }
+
+    @Test
+    void exportReadsBothTablesThroughTheWalletTimestampIndexes() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("walletId", walletId)
+                .addValue("start", HISTORY_START)
+                .addValue("end", NOW);
+
+        String plan = explain(LedgerHistoryRepository.EXPORT_QUERY, params);
+
+        assertTrue(plan.contains("idx_transactions_wallet_timestamp"), plan);
+        assertFalse(plan.contains("Seq Scan on transactions"), plan);
+        // Solo las particiones del rango; la que contiene las filas archivadas se lee por índice
+        String archivedMonth = ArchivePartitionRepository.partitionName(YearMonth.from(NOW.minusDays(60)));
+        assertTrue(archivePartitionsScanned(plan).contains(archivedMonth), plan);
+        assertFalse(plan.contains("Seq Scan on " + archivedMonth), plan);
+        assertFalse(archivePartitionsScanned(plan).contains("archived_transactions_default"), plan);
+    }
+
+    @Test
+    void archivalBatchSelectsRowsThroughTheWalletTimestampIndex() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("walletId", walletId)
+                .addValue("cutoffDate", NOW.minusDays(1))
+                .addValue("limit", 1000)
+                .addValue("archivedAt", NOW)
+                .addValue("granularity", "MONTH");
+
+        String plan = explain(LedgerArchiveRepository.MOVE_BATCH, params);
+
+        assertTrue(plan.contains("idx_transactions_wallet_timestamp"), plan);
+        assertNoSequentialScan(plan);
+    }
+
+    private String explain(String sql, MapSqlParameterSource params) {
+        return explain("", sql, params);
+    }
+
+    private String explain(String options, String sql, MapSqlParameterSource params) {
+        List<String> lines = namedJdbcTemplate.queryForList("EXPLAIN " + options + " " + sql, params, String.class);
+        return String.join("\n", lines);
+    }
+
+    private static Set<String> archivePartitionsScanned(String plan) {
+        Set<String> partitions = new TreeSet<>();
+        Matcher matcher = ARCHIVE_PARTITION_SCAN.matcher(plan);
+        while (matcher.find()) {
+            partitions.add(matcher.group(1));
+        }
+        return partitions;
+    }
+
+    private static void assertNoSequentialScan(String plan) {
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+}
@@ -0,0 +1,120 @@
+package com.nomcci.wallet.management.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Aplica las migraciones sobre una base creada por Hibernate con ddl-auto=update antes de
+ * existir Flyway (columnas IDENTITY, sin periodo ni granularidad en los resúmenes), como la de
+ * los despliegues existentes. Usa un esquema propio para no tocar el de las demás pruebas.
+ */
+@EnabledIfEnvironmentVariable(named = "WALLET_TEST_POSTGRES_URL", matches = ".+")
+class SchemaUpgradeTest {
+
+    private static final String SCHEMA = "pre_flyway_upgrade";
+
+    // DDL que generaba Hibernate para las entidades anteriores a las migraciones
+    private static final String PRE_FLYWAY_SCHEMA = """
+            CREATE SCHEMA %1$s;
+            SET search_path TO %1$s;
+            CREATE TABLE wallets (active BOOLEAN NOT NULL, balance NUMERIC(38, 2) NOT NULL,
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY, user_id BIGINT, currency VARCHAR(255) NOT NULL,
+                PRIMARY KEY (id));
+            CREATE TABLE transactions (amount NUMERIC(38, 2) NOT NULL, destination_wallet_id BIGINT,
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY, timestamp TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                wallet_id BIGINT NOT NULL,
+                transaction_type VARCHAR(255) NOT NULL CHECK (transaction_type IN ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER')),
+                PRIMARY KEY (id));
+            CREATE TABLE archived_transactions (amount NUMERIC(38, 2) NOT NULL,
+                archived_at TIMESTAMP(6) WITH TIME ZONE NOT NULL, destination_wallet_id BIGINT,
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY, timestamp TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                wallet_id BIGINT NOT NULL,
+                transaction_type VARCHAR(255) NOT NULL CHECK (transaction_type IN ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER')),
+                PRIMARY KEY (id));
+            CREATE TABLE transaction_summaries (end_date TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY, start_date TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                total_amount NUMERIC(38, 2) NOT NULL, wallet_id BIGINT NOT NULL, PRIMARY KEY (id));
+            ALTER TABLE transactions ADD CONSTRAINT fk_transactions_wallet FOREIGN KEY (wallet_id) REFERENCES wallets;
+            ALTER TABLE transactions ADD CONSTRAINT fk_transactions_destination FOREIGN KEY (destination_wallet_id) REFERENCES wallets;
+            ALTER TABLE archived_transactions ADD CONSTRAINT fk_archived_wallet FOREIGN KEY (wallet_id) REFERENCES wallets;
+            ALTER TABLE archived_transactions ADD CONSTRAINT fk_archived_destination FOREIGN KEY (destination_wallet_id) REFERENCES wallets;
+            ALTER TABLE transaction_summaries ADD CONSTRAINT fk_summaries_wallet FOREIGN KEY (wallet_id) REFERENCES wallets;
+
+            INSERT INTO wallets (user_id, balance, currency, active) VALUES (7, 12.50, 'USD', true), (8, 0, 'USD', true);
+            INSERT INTO transactions (wallet_id, destination_wallet_id, amount, transaction_type, timestamp)
+                VALUES (1, 2, -2.50, 'TRANSFER', now() - INTERVAL '2 days');
+            INSERT INTO archived_transactions (wallet_id, amount, transaction_type, timestamp, archived_at)
+                VALUES (1, 15.00, 'DEPOSIT', TIMESTAMPTZ '2023-11-20 10:00:00+00', now());
+            INSERT INTO transaction_summaries (wallet_id, total_amount, start_date, end_date)
+                VALUES (1, 15.00, TIMESTAMPTZ '2023-10-01 00:00:00+00', TIMESTAMPTZ '2023-10-31 23:00:00+00'),
+                       (1, 3.00, TIMESTAMPTZ '2023-10-05 00:00:00+00', TIMESTAMPTZ '2023-10-06 00:00:00+00');
+            """;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(System.getenv("WALLET_TEST_POSTGRES_URL"),
+                System.getenv().getOrDefault("WALLET_TEST_POSTGRES_USER", "postgres"),
+                System.getenv().getOrDefault("WALLET_TEST_POSTGRES_PASSWORD", ""));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        dropSchema();
+        jdbcTemplate.execute(PRE_FLYWAY_SCHEMA.formatted(SCHEMA));
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void migrationsUpgradeADatabaseCreatedByHibernate() {
+        // Misma configuración que application-*.properties: la base existente se adopta como versión 0
+        MigrateResult result = Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(SCHEMA)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+
+        assertTrue(result.success);
+        assertEquals(List.of("1", "2", "3", "4", "5"), result.migrations.stream().map(m -> m.version).toList());
+
+        // Los resúmenes previos quedan sin periodo ni granularidad: ArchivalService los integra al archivar
+        List<Map<String, Object>> summaries = jdbcTemplate.queryForList(
+                "SELECT period, granularity FROM " + SCHEMA + ".transaction_summaries");
+        assertEquals(2, summaries.size());
+        summaries.forEach(summary -> {
+            assertNull(summary.get("period"));
+            assertNull(summary.get("granularity"));
+        });
+
+        // Las filas archivadas pasan a la tabla particionada y las secuencias arrancan detrás del mayor id
+        assertEquals(1, count("archived_transactions_p2023_11"));
+        assertEquals(1, count("transactions"));
+        Long nextWalletId = jdbcTemplate.queryForObject("SELECT nextval('" + SCHEMA + ".wallets_seq')", Long.class);
+        assertTrue(nextWalletId > 2);
+        assertEquals(0, count("idempotency_keys"));
+        assertEquals(0, count("processed_paypal_orders"));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + SCHEMA + "." + table, Integer.class);
+    }
+}
@@ -0,0 +1,126 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.dto.ArchivalReportDTO;
+import com.nomcci.wallet.management.model.SummaryGranularity;
+import com.nomcci.wallet.management.model.Transaction;
+import com.nomcci.wallet.management.model.TransactionSummary;
+import com.nomcci.wallet.management.model.TransactionType;
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.ArchivedTransactionRepository;
+import com.nomcci.wallet.management.repository.LedgerArchiveRepository;
+import com.nomcci.wallet.management.repository.TransactionRepository;
+import com.nomcci.wallet.management.repository.TransactionSummaryRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles({"test", "postgres"})
+@EnabledIfEnvironmentVariable(named = "WALLET_TEST_POSTGRES_URL", matches = ".+")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ArchivalService.class, LedgerArchiveRepository.class})
+@TestPropertySource(properties = {
+        "wallet.archival.cutoff-days=30",
+        "wallet.archival.wallet-chunk-size=2",
+        "wallet.archival.batch-size=3"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ArchivalServiceTest {
+
+    @Autowired
+    private ArchivalService archivalService;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    @Autowired
+    private TransactionSummaryRepository transactionSummaryRepository;
+
+    @BeforeEach
+    void cleanUp() {
+        archivedTransactionRepository.deleteAll();
+        transactionSummaryRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void archivesOldTransactionsAcrossWalletChunksInBoundedBatches() {
+        Instant old = Instant.now().minus(60, ChronoUnit.DAYS);
+        Instant recent = Instant.now();
+        for (int w = 0; w < 5; w++) {
+            Wallet wallet = new Wallet();
+            wallet.setUserId(1000L + w);
+            wallet = walletRepository.save(wallet);
+            for (int i = 0; i < 7; i++) {
+                saveTransaction(wallet, old.plusSeconds(i));
+            }
+            saveTransaction(wallet, recent);
+        }
+
+        ArchivalReportDTO report = archivalService.archiveAll();
+
+        assertEquals(5, report.getWalletsScanned());
+        assertEquals(35, report.getRowsArchived());
+        assertEquals(35, archivedTransactionRepository.count());
+        assertEquals(5, transactionRepository.count());
+        // Un único resumen por billetera y periodo aunque el mes se archive en varios lotes
+        assertEquals(5, transactionSummaryRepository.count());
+    }
+
+    @Test
+    void foldsClosedMonthsAndLegacySummariesIntoOneYearlyRollup() {
+        Wallet wallet = new Wallet();
+        wallet.setUserId(2000L);
+        wallet = walletRepository.save(wallet);
+
+        ZonedDateTime twoYearsAgo = ZonedDateTime.now(ZoneOffset.UTC).minusYears(2).withDayOfMonth(10);
+        saveTransaction(wallet, twoYearsAgo.withMonth(3).toInstant());
+        saveTransaction(wallet, twoYearsAgo.withMonth(7).toInstant());
+
+        TransactionSummary legacy = new TransactionSummary();
+        legacy.setWallet(wallet);
+        legacy.setTotalAmount(BigDecimal.ONE);
+        legacy.setStartDate(twoYearsAgo.withMonth(5).toInstant());
+        legacy.setEndDate(twoYearsAgo.withMonth(5).toInstant());
+        transactionSummaryRepository.save(legacy);
+
+        archivalService.archiveAll();
+        archivalService.archiveAll();
+
+        List<TransactionSummary> summaries = transactionSummaryRepository.findByWallet(wallet);
+        assertEquals(1, summaries.size());
+        assertEquals(SummaryGranularity.YEAR, summaries.get(0).getGranularity());
+        assertEquals(String.valueOf(twoYearsAgo.getYear()), summaries.get(0).getPeriod());
+        assertEquals(0, new BigDecimal("21").compareTo(summaries.get(0).getTotalAmount()));
+    }
+
+    private void saveTransaction(Wallet wallet, Instant timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setWallet(wallet);
+        transaction.setAmount(BigDecimal.TEN);
+        transaction.setTransactionType(TransactionType.DEPOSIT);
+        transaction.setTimestamp(timestamp);
+        transactionRepository.save(transaction);
+    }
+}
@@ -0,0 +1,103 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.dto.ArchivalReportDTO;
+import com.nomcci.wallet.management.model.Transaction;
+import com.nomcci.wallet.management.model.TransactionType;
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.ArchivedTransactionRepository;
+import com.nomcci.wallet.management.repository.LedgerArchiveRepository;
+import com.nomcci.wallet.management.repository.TransactionRepository;
+import com.nomcci.wallet.management.repository.TransactionSummaryRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cuenta las sentencias que prepara Hibernate durante una ejecución del archivado; el movimiento
+ * de filas se hace con SQL sobre conjuntos, así que solo quedan las de recorrido y compactación.
+ * Se ejecuta con {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles({"test", "postgres"})
+@EnabledIfEnvironmentVariable(named = "WALLET_TEST_POSTGRES_URL", matches = ".+")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ArchivalService.class, LedgerArchiveRepository.class})
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "wallet.archival.cutoff-days=30",
+        "wallet.archival.batch-size=1000"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ArchivalStatementCountBenchmarkTest {
+
+    private static final int WALLETS = 4;
+    private static final int TRANSACTIONS_PER_WALLET = 1_000;
+
+    @Autowired
+    private ArchivalService archivalService;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    @Autowired
+    private TransactionSummaryRepository transactionSummaryRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void statementsPerArchivalRun() {
+        archivedTransactionRepository.deleteAll();
+        transactionSummaryRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+
+        Instant old = Instant.now().minus(90, ChronoUnit.DAYS);
+        for (int w = 0; w < WALLETS; w++) {
+            Wallet wallet = new Wallet();
+            wallet.setUserId(500L + w);
+            wallet = walletRepository.save(wallet);
+            List<Transaction> transactions = new ArrayList<>(TRANSACTIONS_PER_WALLET);
+            for (int i = 0; i < TRANSACTIONS_PER_WALLET; i++) {
+                Transaction transaction = new Transaction();
+                transaction.setWallet(wallet);
+                transaction.setAmount(BigDecimal.ONE);
+                transaction.setTransactionType(TransactionType.DEPOSIT);
+                transaction.setTimestamp(old.minus(i % 60, ChronoUnit.DAYS));
+                transactions.add(transaction);
+            }
+            transactionRepository.saveAll(transactions);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ArchivalReportDTO report = archivalService.archiveAll();
+
+        System.out.printf("[archival] %,d rows | %,d statements prepared by Hibernate | %.0f rows/s%n",
+                report.getRowsArchived(), statistics.getPrepareStatementCount(), report.getRowsPerSecond());
+        assertEquals(WALLETS * TRANSACTIONS_PER_WALLET, report.getRowsArchived());
+    }
+}
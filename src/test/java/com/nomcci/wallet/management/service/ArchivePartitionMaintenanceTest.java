@@ -0,0 +1,129 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.repository.ArchivePartitionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Usa meses lejanos en el futuro para no interferir con las particiones que crean las migraciones.
+ */
+@DataJpaTest
+@ActiveProfiles({"test", "postgres"})
+@EnabledIfEnvironmentVariable(named = "WALLET_TEST_POSTGRES_URL", matches = ".+")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ArchivePartitionRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ArchivePartitionMaintenanceTest {
+
+    private static final YearMonth TEST_RANGE_START = YearMonth.of(2040, 1);
+    private static final Instant NOW = Instant.parse("2041-06-15T12:00:00Z");
+
+    @Autowired
+    private ArchivePartitionRepository archivePartitionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ArchivePartitionMaintenance maintenance;
+    private Long walletId;
+
+    @BeforeEach
+    void setUp() {
+        dropTestPartitions();
+        jdbcTemplate.execute("TRUNCATE processed_paypal_orders, transaction_summaries, archived_transactions, transactions, wallets");
+        walletId = jdbcTemplate.queryForObject(
+                "INSERT INTO wallets (id, user_id, balance, currency, active) VALUES (nextval('wallets_seq'), 1, 0, 'USD', true) RETURNING id",
+                Long.class);
+
+        maintenance = new ArchivePartitionMaintenance(archivePartitionRepository, transactionTemplate,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(maintenance, "cutoffDays", 30);
+        ReflectionTestUtils.setField(maintenance, "monthsAhead", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dropTestPartitions();
+    }
+
+    @Test
+    void createsPartitionsAheadAndMovesStrayRowsOutOfTheDefaultPartition() {
+        // Fila archivada antes de que existiera la partición de su mes
+        insertArchivedRow(Instant.parse("2041-05-10T08:00:00Z"));
+        assertEquals("archived_transactions_default", partitionOfArchivedRow());
+
+        maintenance.maintainPartitions();
+
+        // Desde el mes anterior al de corte (mayo) hasta tres meses por delante
+        assertEquals(List.of(YearMonth.of(2041, 4), YearMonth.of(2041, 5), YearMonth.of(2041, 6),
+                        YearMonth.of(2041, 7), YearMonth.of(2041, 8), YearMonth.of(2041, 9)),
+                testPartitions());
+        assertEquals("archived_transactions_p2041_05", partitionOfArchivedRow());
+
+        maintenance.maintainPartitions();
+        assertEquals(6, testPartitions().size());
+    }
+
+    @Test
+    void retentionDropsWholePartitionsOlderThanTheWindow() {
+        transactionTemplate.executeWithoutResult(status -> archivePartitionRepository.createPartition(YearMonth.of(2040, 2)));
+        insertArchivedRow(Instant.parse("2040-02-20T00:00:00Z"));
+        ReflectionTestUtils.setField(maintenance, "retentionMonths", 12);
+
+        maintenance.maintainPartitions();
+
+        List<YearMonth> partitions = testPartitions();
+        assertFalse(partitions.contains(YearMonth.of(2040, 2)));
+        assertTrue(partitions.contains(YearMonth.of(2041, 4)));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM archived_transactions", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_class WHERE relname = 'archived_transactions_p2040_02'", Integer.class));
+    }
+
+    private void insertArchivedRow(Instant timestamp) {
+        jdbcTemplate.update("""
+                INSERT INTO archived_transactions (id, wallet_id, amount, transaction_type, timestamp, archived_at)
+                VALUES (nextval('archived_transactions_seq'), ?, 1, 'DEPOSIT', ?, now())
+                """, walletId, timestamp.atOffset(ZoneOffset.UTC));
+    }
+
+    private String partitionOfArchivedRow() {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM archived_transactions", String.class);
+    }
+
+    private List<YearMonth> testPartitions() {
+        return archivePartitionRepository.findPartitionMonths().stream()
+                .filter(month -> !month.isBefore(TEST_RANGE_START))
+                .toList();
+    }
+
+    private void dropTestPartitions() {
+        for (YearMonth month : testPartitions()) {
+            archivePartitionRepository.detachPartition(month);
+            archivePartitionRepository.dropDetachedPartition(month);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.dto.TransactionTypeSummaryDTO;
+import com.nomcci.wallet.management.model.*;
+import com.nomcci.wallet.management.repository.LedgerHistoryRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que el cálculo del saldo se resuelve con agregaciones en la base de datos y no
+ * materializa las transacciones ni los resúmenes de la billetera.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({WalletService.class, TransferEngine.class, WalletBalanceCache.class, LedgerHistoryRepository.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BalanceAggregationTest {
+
+    private static final int TRANSACTIONS = 200;
+
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private WalletService walletService;
+    @MockitoBean
+    private UserDirectoryClient userDirectoryClient;
+
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        wallet = new Wallet();
+        wallet.setUserId(42L);
+        wallet = entityManager.persist(wallet);
+
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setWallet(wallet);
+            transaction.setAmount(BigDecimal.ONE);
+            transaction.setTransactionType(i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.TRANSFER);
+            transaction.setTimestamp(Instant.now());
+            entityManager.persist(transaction);
+        }
+
+        TransactionSummary summary = new TransactionSummary();
+        summary.setWallet(wallet);
+        summary.setPeriod("2020");
+        summary.setGranularity(SummaryGranularity.YEAR);
+        summary.setTotalAmount(new BigDecimal("50"));
+        summary.setStartDate(Instant.parse("2020-01-01T00:00:00Z"));
+        summary.setEndDate(Instant.parse("2020-12-31T00:00:00Z"));
+        entityManager.persist(summary);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void balanceComputationDoesNotHydrateLedgerRows() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Wallet recalculated = walletService.recalculateBalance(wallet.getId());
+
+        assertEquals(0, new BigDecimal("250").compareTo(recalculated.getBalance()));
+        // Solo se materializa la propia billetera
+        assertTrue(statistics.getEntityLoadCount() <= 1,
+                "Entidades materializadas: " + statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void transactionTypeSummaryIsComputedInTheDatabase() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<TransactionTypeSummaryDTO> summary = walletService.getTransactionTypeSummary(wallet.getId());
+
+        assertEquals(2, summary.size());
+        summary.forEach(row -> assertEquals(TRANSACTIONS / 2, row.getCount()));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -0,0 +1,102 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.LedgerHistoryRepository;
+import com.nomcci.wallet.management.repository.TransactionRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * La consulta de saldo no escribe y, una vez en caché, no llega a la base de datos;
+ * cada mutación confirmada invalida el saldo almacenado.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({WalletService.class, TransferEngine.class, WalletBalanceCache.class, LedgerHistoryRepository.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BalanceReadPathTest {
+
+    // La relación usuario → billetera se cachea sin expirar: cada prueba usa un usuario nuevo
+    private static final AtomicLong USER_IDS = new AtomicLong(7_000);
+
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @MockitoBean
+    private UserDirectoryClient userDirectoryClient;
+
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+        wallet = new Wallet();
+        long userId = USER_IDS.incrementAndGet();
+        wallet.setUserId(userId);
+        wallet = walletRepository.save(wallet);
+
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject(String.valueOf(userId)).build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void repeatedBalanceReadsNeverWriteAndHitTheCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletService.getBalance()));
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        statistics.clear();
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletService.getBalance()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void mutationsInvalidateTheCachedBalance() {
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletService.getBalance()));
+
+        walletService.deposit(wallet.getId(), new BigDecimal("25"));
+        assertEquals(0, new BigDecimal("25").compareTo(walletService.getBalance()));
+
+        walletService.withdraw(wallet.getId(), new BigDecimal("10"));
+        assertEquals(0, new BigDecimal("15").compareTo(walletService.getBalance()));
+    }
+}
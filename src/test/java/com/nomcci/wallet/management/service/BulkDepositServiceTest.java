@@ -0,0 +1,121 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.dto.BulkDepositErrorDTO;
+import com.nomcci.wallet.management.dto.BulkDepositReportDTO;
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.TransactionRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({BulkDepositService.class, WalletBalanceCache.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "wallet.bulk-deposit.chunk-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkDepositServiceTest {
+
+    @Autowired
+    private BulkDepositService bulkDepositService;
+    @Autowired
+    private WalletBalanceCache walletBalanceCache;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final List<BulkDepositErrorDTO> errors = new ArrayList<>();
+    private final List<BulkDepositReportDTO> progress = new ArrayList<>();
+    private final BulkDepositService.Listener listener = new BulkDepositService.Listener() {
+        @Override
+        public void onProgress(BulkDepositReportDTO report) {
+            progress.add(report);
+        }
+
+        @Override
+        public void onRejected(BulkDepositErrorDTO error) {
+            errors.add(error);
+        }
+    };
+
+    private Wallet first;
+    private Wallet second;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+        first = walletRepository.save(newWallet(1L));
+        second = walletRepository.save(newWallet(2L));
+    }
+
+    @Test
+    void csvDepositsAreAppliedPerChunkAndBadLinesAreReported() throws Exception {
+        // Saldo en caché antes de la ingesta: debe invalidarse
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletBalanceCache.getBalance(first.getId()).orElseThrow()));
+        String body = String.join("\n",
+                "walletId,amount",
+                first.getId() + ",10.00",
+                second.getId() + ",5",
+                first.getId() + ",2.50",
+                "abc,1",
+                second.getId() + ",-3",
+                "999999,4",
+                second.getId() + ",1.001",
+                "");
+
+        BulkDepositReportDTO report = bulkDepositService.ingest(new StringReader(body), BulkDepositService.Format.CSV, listener);
+
+        assertEquals(7, report.getLinesRead());
+        assertEquals(3, report.getDepositsApplied());
+        assertEquals(4, report.getLinesRejected());
+        assertEquals(0, new BigDecimal("17.50").compareTo(report.getTotalAmount()));
+        assertEquals(List.of(5L, 6L, 7L, 8L), errors.stream().map(BulkDepositErrorDTO::getLine).sorted().toList());
+        assertEquals(2, progress.size());
+
+        assertEquals(0, new BigDecimal("12.50").compareTo(walletRepository.findById(first.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("5").compareTo(walletRepository.findById(second.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("12.50").compareTo(walletBalanceCache.getBalance(first.getId()).orElseThrow()));
+        assertEquals(3, transactionRepository.count());
+    }
+
+    @Test
+    void ndjsonDepositsAcceptNumericAndTextAmounts() throws Exception {
+        String body = String.join("\n",
+                "{\"walletId\": " + first.getId() + ", \"amount\": 0.10}",
+                "{\"walletId\": " + second.getId() + ", \"amount\": \"7.25\"}",
+                "{not json",
+                "");
+
+        BulkDepositReportDTO report = bulkDepositService.ingest(new StringReader(body), BulkDepositService.Format.NDJSON, listener);
+
+        assertEquals(2, report.getDepositsApplied());
+        assertEquals(1, errors.size());
+        assertEquals(3, errors.get(0).getLine());
+        assertEquals(0, new BigDecimal("0.10").compareTo(walletRepository.findById(first.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("7.25").compareTo(walletRepository.findById(second.getId()).orElseThrow().getBalance()));
+    }
+
+    private static Wallet newWallet(Long userId) {
+        Wallet wallet = new Wallet();
+        wallet.setUserId(userId);
+        return wallet;
+    }
+}
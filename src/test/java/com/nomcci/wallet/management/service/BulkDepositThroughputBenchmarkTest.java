@@ -0,0 +1,108 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.dto.BulkDepositErrorDTO;
+import com.nomcci.wallet.management.dto.BulkDepositReportDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ingiere 200k depósitos sobre 20k billeteras desde un cuerpo generado al vuelo y muestra el
+ * rendimiento en depósitos por segundo. Se ejecuta con {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles({"test", "postgres"})
+@EnabledIfEnvironmentVariable(named = "WALLET_TEST_POSTGRES_URL", matches = ".+")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BulkDepositService.class, WalletBalanceCache.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkDepositThroughputBenchmarkTest {
+
+    private static final int WALLETS = 20_000;
+    private static final int DEPOSITS = 200_000;
+
+    @Autowired
+    private BulkDepositService bulkDepositService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void depositsPerSecond() throws Exception {
+        jdbcTemplate.execute("TRUNCATE processed_paypal_orders, transaction_summaries, archived_transactions, transactions, wallets");
+        jdbcTemplate.update("""
+                INSERT INTO wallets (id, user_id, balance, currency, active)
+                SELECT nextval('wallets_seq'), g, 0, 'USD', true FROM generate_series(1, ?) g
+                """, WALLETS);
+        long[] walletIds = jdbcTemplate.queryForList("SELECT id FROM wallets ORDER BY id", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+
+        BulkDepositReportDTO report = bulkDepositService.ingest(new GeneratedCsv(walletIds), BulkDepositService.Format.CSV,
+                new BulkDepositService.Listener() {
+                    @Override
+                    public void onProgress(BulkDepositReportDTO progress) {
+                    }
+
+                    @Override
+                    public void onRejected(BulkDepositErrorDTO error) {
+                    }
+                });
+
+        System.out.printf("Depósitos masivos: %d en %d ms (%.0f depósitos/s)%n",
+                report.getDepositsApplied(), report.getElapsedMillis(), report.getDepositsPerSecond());
+        assertEquals(DEPOSITS, report.getDepositsApplied());
+        assertEquals(DEPOSITS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        assertEquals(0, new BigDecimal(DEPOSITS).compareTo(
+                jdbcTemplate.queryForObject("SELECT SUM(balance) FROM wallets", BigDecimal.class)));
+    }
+
+    /**
+     * Cuerpo CSV de {@code DEPOSITS} líneas de 1.00 repartidas entre las billeteras, generado a
+     * medida que se lee.
+     */
+    private static final class GeneratedCsv extends Reader {
+        private final long[] walletIds;
+        private int line;
+        private String current = "";
+        private int position;
+
+        private GeneratedCsv(long[] walletIds) {
+            this.walletIds = walletIds;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == current.length()) {
+                if (line == DEPOSITS) {
+                    return -1;
+                }
+                current = walletIds[line % walletIds.length] + ",1.00\n";
+                position = 0;
+                line++;
+            }
+            int count = Math.min(length, current.length() - position);
+            current.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
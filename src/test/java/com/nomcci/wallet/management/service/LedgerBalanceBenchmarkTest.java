@@ -0,0 +1,111 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.LedgerHistoryRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara la latencia del saldo incremental contra el recorrido completo del historial
+ * para billeteras con 1k, 10k y 100k transacciones. Se ejecuta con {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({WalletService.class, TransferEngine.class, WalletBalanceCache.class, LedgerHistoryRepository.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LedgerBalanceBenchmarkTest {
+
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WalletService walletService;
+    @MockitoBean
+    private UserDirectoryClient userDirectoryClient;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 100_000})
+    void incrementalVersusRescan(int transactionCount) {
+        Long walletId = seedWallet(transactionCount);
+
+        double[] rescan = measure(() -> walletService.recalculateBalance(walletId));
+        double[] incremental = measure(() -> walletService.deposit(walletId, BigDecimal.ONE));
+
+        System.out.printf("[ledger] %,7d tx | rescan p50=%8.3f ms p99=%8.3f ms | incremental p50=%8.3f ms p99=%8.3f ms%n",
+                transactionCount, rescan[0], rescan[1], incremental[0], incremental[1]);
+
+        Wallet wallet = walletRepository.findById(walletId).orElseThrow();
+        assertTrue(Boolean.TRUE.equals(tx.execute(status -> walletService.verifyBalance(wallet))));
+    }
+
+    private Long seedWallet(int transactionCount) {
+        Wallet wallet = new Wallet();
+        wallet.setUserId(System.nanoTime());
+        wallet.setBalance(BigDecimal.valueOf(transactionCount));
+        Long walletId = walletRepository.save(wallet).getId();
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(transactionCount);
+        for (int i = 0; i < transactionCount; i++) {
+            rows.add(new Object[]{walletId, BigDecimal.ONE, "DEPOSIT", now});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transactions (id, wallet_id, amount, transaction_type, timestamp) VALUES (nextval('transactions_seq'), ?, ?, ?, ?)",
+                rows);
+        return walletId;
+    }
+
+    private double[] measure(Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            tx.executeWithoutResult(status -> operation.run());
+        }
+        double[] samples = new double[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            tx.executeWithoutResult(status -> operation.run());
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return new double[]{samples[ITERATIONS / 2], samples[ITERATIONS - 1]};
+    }
+}
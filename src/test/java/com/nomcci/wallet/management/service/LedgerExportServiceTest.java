@@ -0,0 +1,123 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.model.ArchivedTransaction;
+import com.nomcci.wallet.management.model.Transaction;
+import com.nomcci.wallet.management.model.TransactionType;
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.LedgerHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({LedgerExportService.class, LedgerHistoryRepository.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {"wallet.export.fetch-size=2", "wallet.export.name-batch-size=2"})
+class LedgerExportServiceTest {
+
+    private static final Instant BASE = Instant.parse("2024-03-01T00:00:00Z");
+
+    @Autowired
+    private LedgerExportService ledgerExportService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @MockitoBean
+    private UserDirectoryClient userDirectoryClient;
+
+    @Test
+    void csvExportMergesActiveAndArchivedRowsInChronologicalOrder() throws Exception {
+        Wallet wallet = persistWallet(21L);
+        Wallet counterparty = persistWallet(22L);
+        persistArchived(wallet, BASE, "5.00");
+        persistActive(wallet, counterparty, BASE.plusSeconds(10), "-2.50");
+        persistArchived(wallet, BASE.plusSeconds(20), "1.00");
+        persistActive(wallet, null, BASE.plusSeconds(30), "7.00");
+        entityManager.flush();
+        when(userDirectoryClient.getFirstNamesByIds(anyCollection())).thenReturn(Map.of(22L, "Ana, \"la\" Pérez"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long rows = ledgerExportService.export(wallet.getId(), null, BASE.plusSeconds(3600), LedgerExportService.Format.CSV, output);
+
+        assertEquals(4, rows);
+        assertEquals(List.of(
+                "timestamp,transactionType,amount,destinationWallet",
+                "2024-03-01T00:00:00Z,DEPOSIT,5.00,N/A",
+                "2024-03-01T00:00:10Z,TRANSFER,-2.50,\"Ana, \"\"la\"\" Pérez\"",
+                "2024-03-01T00:00:20Z,DEPOSIT,1.00,N/A",
+                "2024-03-01T00:00:30Z,TRANSFER,7.00,N/A"
+        ), output.toString(StandardCharsets.UTF_8).lines().toList());
+        // Un lote de nombres por cada dos filas
+        verify(userDirectoryClient, times(2)).getFirstNamesByIds(anyCollection());
+    }
+
+    @Test
+    void ndjsonExportHonoursTheDateRange() throws Exception {
+        Wallet wallet = persistWallet(23L);
+        persistActive(wallet, null, BASE, "1.00");
+        persistActive(wallet, null, BASE.plusSeconds(60), "2.00");
+        persistArchived(wallet, BASE.plusSeconds(120), "3.00");
+        entityManager.flush();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ledgerExportService.export(wallet.getId(), BASE.plusSeconds(30), BASE.plusSeconds(90), LedgerExportService.Format.NDJSON, output);
+
+        assertEquals(List.of("{\"timestamp\":\"2024-03-01T00:01:00Z\",\"destinationWallet\":\"N/A\",\"transactionType\":\"TRANSFER\",\"amount\":2.00}"),
+                output.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void unknownWalletsAndFormatsAreRejectedBeforeStreaming() {
+        assertThrows(IllegalArgumentException.class, () -> ledgerExportService.requireWallet(-1L));
+        assertThrows(IllegalArgumentException.class, () -> LedgerExportService.Format.of("xml"));
+    }
+
+    private Wallet persistWallet(Long userId) {
+        Wallet wallet = new Wallet();
+        wallet.setUserId(userId);
+        return entityManager.persist(wallet);
+    }
+
+    private void persistActive(Wallet wallet, Wallet destination, Instant timestamp, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setWallet(wallet);
+        transaction.setDestinationWallet(destination);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setTimestamp(timestamp);
+        entityManager.persist(transaction);
+    }
+
+    private void persistArchived(Wallet wallet, Instant timestamp, String amount) {
+        ArchivedTransaction archived = new ArchivedTransaction();
+        archived.setWallet(wallet);
+        archived.setAmount(new BigDecimal(amount));
+        archived.setTransactionType(TransactionType.DEPOSIT);
+        archived.setTimestamp(timestamp);
+        archived.setArchivedAt(Instant.now());
+        entityManager.persist(archived);
+    }
+}
@@ -0,0 +1,85 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.exception.PaymentAlreadyProcessedException;
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.LedgerHistoryRepository;
+import com.nomcci.wallet.management.repository.ProcessedPaypalOrderRepository;
+import com.nomcci.wallet.management.repository.TransactionRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Una orden de PayPal se acredita una sola vez, aunque su clave de idempotencia ya no exista.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({WalletService.class, TransferEngine.class, WalletBalanceCache.class, LedgerHistoryRepository.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaypalDepositTest {
+
+    private static final long USER_ID = 8_100L;
+
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private ProcessedPaypalOrderRepository processedPaypalOrderRepository;
+    @MockitoBean
+    private UserDirectoryClient userDirectoryClient;
+
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        processedPaypalOrderRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+        wallet = new Wallet();
+        wallet.setUserId(USER_ID);
+        wallet = walletRepository.save(wallet);
+
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject(String.valueOf(USER_ID)).build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+        processedPaypalOrderRepository.deleteAll();
+    }
+
+    @Test
+    void anOrderIsCreditedOnlyOnce() {
+        walletService.depositPaypalOrder("ORDER-1", new BigDecimal("20"));
+
+        assertThrows(PaymentAlreadyProcessedException.class,
+                () -> walletService.depositPaypalOrder("ORDER-1", new BigDecimal("20")));
+
+        assertEquals(0, new BigDecimal("20").compareTo(walletRepository.findById(wallet.getId()).orElseThrow().getBalance()));
+        assertEquals(1, transactionRepository.count());
+        assertEquals(wallet.getId(), processedPaypalOrderRepository.findById("ORDER-1").orElseThrow().getWalletId());
+    }
+}
@@ -0,0 +1,145 @@
+package com.nomcci.wallet.management.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Usa un servidor simulado en lugar del endpoint de tokens de PayPal.
+ */
+class PaypalTokenManagerTest {
+
+    private static final String PAYPAL_URL = "http://paypal.local";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    private MockRestServiceServer paypal;
+    private PaypalTokenManager tokenManager;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        paypal = MockRestServiceServer.bindTo(restTemplate).build();
+
+        tokenManager = new PaypalTokenManager(restTemplate, clock);
+        ReflectionTestUtils.setField(tokenManager, "clientId", "client");
+        ReflectionTestUtils.setField(tokenManager, "clientSecret", "secret");
+        ReflectionTestUtils.setField(tokenManager, "paypalApiUrl", PAYPAL_URL);
+        ReflectionTestUtils.setField(tokenManager, "refreshMargin", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void concurrentPaymentsShareOneTokenRequest() throws Exception {
+        expectToken(ExpectedCount.once(), "A-1", 32400);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<String>> calls = IntStream.range(0, 50)
+                    .<Callable<String>>mapToObj(i -> tokenManager::getAccessToken)
+                    .toList();
+            List<String> tokens = executor.invokeAll(calls).stream().map(PaypalTokenManagerTest::join).distinct().toList();
+
+            assertEquals(List.of("A-1"), tokens);
+        } finally {
+            executor.shutdownNow();
+        }
+        paypal.verify();
+    }
+
+    @Test
+    void tokenIsRefreshedInTheBackgroundBeforeItExpires() throws Exception {
+        expectToken(ExpectedCount.once(), "A-1", 3600);
+        assertEquals("A-1", tokenManager.getAccessToken());
+        paypal.verify();
+
+        // Fuera del margen de renovación no se consulta a PayPal
+        clock.advance(Duration.ofMinutes(50));
+        tokenManager.refreshIfExpiring();
+        paypal.verify();
+
+        paypal.reset();
+        expectToken(ExpectedCount.once(), "A-2", 3600);
+        clock.advance(Duration.ofMinutes(6));
+        tokenManager.refreshIfExpiring();
+
+        assertEquals("A-2", tokenManager.getAccessToken());
+        paypal.verify();
+    }
+
+    @Test
+    void expiredTokenIsReplacedOnDemand() throws Exception {
+        expectToken(ExpectedCount.once(), "A-1", 600);
+        assertEquals("A-1", tokenManager.getAccessToken());
+
+        paypal.reset();
+        expectToken(ExpectedCount.once(), "A-2", 600);
+        clock.advance(Duration.ofMinutes(11));
+
+        assertEquals("A-2", tokenManager.getAccessToken());
+        paypal.verify();
+    }
+
+    private void expectToken(ExpectedCount count, String token, long expiresIn) {
+        paypal.expect(count, requestTo(PAYPAL_URL + "/v1/oauth2/token"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("{\"access_token\":\"" + token + "\",\"expires_in\":" + expiresIn + "}",
+                        MediaType.APPLICATION_JSON));
+    }
+
+    private static String join(Future<String> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mide transferencias por segundo y tasa de reintentos del motor de transferencias
+ * con un conjunto pequeño de billeteras muy disputadas. Se ejecuta con {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransferEngine.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = "spring.datasource.hikari.maximum-pool-size=32")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferContentionBenchmarkTest {
+
+    private static final int WALLETS = 8;
+    private static final int TRANSFERS_PER_THREAD = 200;
+
+    @Autowired
+    private TransferEngine transferEngine;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 8, 16, 32})
+    void transfersPerSecondAndRetryRate(int threads) throws Exception {
+        List<Long> walletIds = new ArrayList<>();
+        for (int i = 0; i < WALLETS; i++) {
+            Wallet wallet = new Wallet();
+            wallet.setUserId(System.nanoTime());
+            wallet.setBalance(new BigDecimal("1000000"));
+            walletIds.add(walletRepository.save(wallet).getId());
+        }
+        double retriesBefore = meterRegistry.counter("wallet.transfer.retries").count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(WALLETS);
+                        int to = (from + 1 + random.nextInt(WALLETS - 1)) % WALLETS;
+                        transferEngine.transfer(walletIds.get(from), walletIds.get(to), BigDecimal.ONE);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        int transfers = threads * TRANSFERS_PER_THREAD;
+        double retries = meterRegistry.counter("wallet.transfer.retries").count() - retriesBefore;
+        System.out.printf("[transfers] %2d threads | %,8.0f transfers/s | retries %5.0f (%.2f%%)%n",
+                threads, transfers / seconds, retries, 100.0 * retries / transfers);
+
+        BigDecimal total = walletIds.stream()
+                .map(id -> walletRepository.findById(id).orElseThrow().getBalance())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, new BigDecimal("1000000").multiply(BigDecimal.valueOf(WALLETS)).compareTo(total));
+    }
+}
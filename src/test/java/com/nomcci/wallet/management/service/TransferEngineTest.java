@@ -0,0 +1,154 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.dto.BatchTransferResultDTO;
+import com.nomcci.wallet.management.dto.TransferLegDTO;
+import com.nomcci.wallet.management.model.Wallet;
+import com.nomcci.wallet.management.repository.ArchivedTransactionRepository;
+import com.nomcci.wallet.management.repository.TransactionRepository;
+import com.nomcci.wallet.management.repository.TransactionSummaryRepository;
+import com.nomcci.wallet.management.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransferEngine.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = "spring.datasource.hikari.maximum-pool-size=16")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferEngineTest {
+
+    @Autowired
+    private TransferEngine transferEngine;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    @Autowired
+    private TransactionSummaryRepository transactionSummaryRepository;
+
+    @BeforeEach
+    void cleanUp() {
+        archivedTransactionRepository.deleteAll();
+        transactionSummaryRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void opposingConcurrentTransfersNeitherDeadlockNorLoseUpdates() throws Exception {
+        Long a = wallet(1L, "1000");
+        Long b = wallet(2L, "1000");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                boolean forward = thread % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        transferEngine.transfer(forward ? a : b, forward ? b : a, BigDecimal.ONE);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Mismo número de transferencias en cada sentido: los saldos vuelven al inicio
+        assertBalance(a, "1000");
+        assertBalance(b, "1000");
+        assertEquals(400, transactionRepository.count());
+        assertEquals(0, BigDecimal.ZERO.compareTo(transactionRepository.sumAmountByWalletId(a)));
+    }
+
+    @Test
+    void insufficientFundsLeaveNoTraceInTheLedger() {
+        Long a = wallet(1L, "5");
+        Long b = wallet(2L, "0");
+
+        assertThrows(IllegalArgumentException.class, () -> transferEngine.transfer(a, b, new BigDecimal("6")));
+
+        assertBalance(a, "5");
+        assertBalance(b, "0");
+        assertEquals(0, transactionRepository.count());
+    }
+
+    @Test
+    void batchTransferAppliesEveryLegInOneTransaction() {
+        Long source = wallet(1L, "100");
+        Long b = wallet(2L, "0");
+        Long c = wallet(3L, "5");
+
+        BatchTransferResultDTO result = transferEngine.transferBatch(source, List.of(
+                new TransferLegDTO(c, new BigDecimal("30")),
+                new TransferLegDTO(b, new BigDecimal("20")),
+                new TransferLegDTO(c, new BigDecimal("10"))));
+
+        assertBalance(source, "40");
+        assertBalance(b, "20");
+        assertBalance(c, "45");
+        assertEquals(0, new BigDecimal("60").compareTo(result.getTotalAmount()));
+        assertEquals(0, new BigDecimal("40").compareTo(result.getSourceBalance()));
+        assertEquals(3, result.getLegs().size());
+        assertEquals(c, result.getLegs().get(2).getToWalletId());
+        assertNotNull(result.getLegs().get(2).getCreditTransactionId());
+        assertEquals(6, transactionRepository.count());
+    }
+
+    @Test
+    void batchTransferIsAllOrNothing() {
+        Long source = wallet(1L, "50");
+        Long b = wallet(2L, "0");
+
+        // El total supera el saldo aunque cada tramo por separado cabría
+        assertThrows(IllegalArgumentException.class, () -> transferEngine.transferBatch(source, List.of(
+                new TransferLegDTO(b, new BigDecimal("30")),
+                new TransferLegDTO(b, new BigDecimal("30")))));
+        // Un destino inexistente anula también los tramos válidos
+        assertThrows(IllegalArgumentException.class, () -> transferEngine.transferBatch(source, List.of(
+                new TransferLegDTO(b, new BigDecimal("10")),
+                new TransferLegDTO(-1L, new BigDecimal("10")))));
+
+        assertBalance(source, "50");
+        assertBalance(b, "0");
+        assertEquals(0, transactionRepository.count());
+    }
+
+    private Long wallet(Long userId, String balance) {
+        Wallet wallet = new Wallet();
+        wallet.setUserId(userId);
+        wallet.setBalance(new BigDecimal(balance));
+        return walletRepository.save(wallet).getId();
+    }
+
+    private void assertBalance(Long walletId, String expected) {
+        BigDecimal balance = walletRepository.findById(walletId).orElseThrow().getBalance();
+        assertEquals(0, new BigDecimal(expected).compareTo(balance), "Saldo " + balance);
+    }
+}
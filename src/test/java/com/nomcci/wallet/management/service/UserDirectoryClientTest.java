@@ -0,0 +1,162 @@
+package com.nomcci.wallet.management.service;
+
+import com.nomcci.wallet.management.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Usa un servidor simulado en lugar del servicio de autenticación.
+ */
+class UserDirectoryClientTest {
+
+    private static final String AUTH_URL = "http://auth.local/api/auth";
+
+    private MockRestServiceServer authService;
+    private UserDirectoryClient client;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        authService = MockRestServiceServer.bindTo(restTemplate).build();
+
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.generateServiceToken()).thenReturn("service-token");
+
+        meterRegistry = new SimpleMeterRegistry();
+        client = new UserDirectoryClient(jwtUtil, restTemplate, meterRegistry);
+        ReflectionTestUtils.setField(client, "authUrl", AUTH_URL);
+        ReflectionTestUtils.setField(client, "maximumSize", 100L);
+        ReflectionTestUtils.setField(client, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(client, "negativeTtl", Duration.ofMinutes(1));
+        client.initCaches();
+    }
+
+    @Test
+    void resolvesAPageOfCounterpartiesWithASingleBulkCall() {
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-users-by-ids"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().json("[1,2,3]"))
+                .andRespond(withSuccess("{\"1\":\"Ana\",\"2\":\"Luis\",\"3\":\"Eva\"}", MediaType.APPLICATION_JSON));
+
+        // 50 filas de una página con solo tres contrapartes distintas
+        List<Long> rows = IntStream.range(0, 50).mapToObj(i -> (long) (i % 3) + 1).toList();
+        Map<Long, String> names = client.getFirstNamesByIds(rows);
+
+        assertEquals(Map.of(1L, "Ana", 2L, "Luis", 3L, "Eva"), names);
+        authService.verify();
+    }
+
+    @Test
+    void fallsBackToOneCallPerDistinctIdWhenBulkLookupIsMissing() {
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-users-by-ids"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-user-by-id/5"))
+                .andRespond(withSuccess("Ana", MediaType.TEXT_PLAIN));
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-user-by-id/6"))
+                .andRespond(withSuccess("Luis", MediaType.TEXT_PLAIN));
+
+        Map<Long, String> names = client.getFirstNamesByIds(List.of(5L, 6L, 5L, 6L));
+
+        assertEquals(Map.of(5L, "Ana", 6L, "Luis"), names);
+        authService.verify();
+    }
+
+    @Test
+    void idsWithoutANameAreLeftOutOfTheResult() {
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-users-by-ids"))
+                .andRespond(withStatus(HttpStatus.METHOD_NOT_ALLOWED));
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-user-by-id/5"))
+                .andRespond(withSuccess("Ana", MediaType.TEXT_PLAIN));
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-user-by-id/6"))
+                .andRespond(withSuccess());
+
+        // Sin nombre para el 6: no llega a la caché y quien llama usa su valor por defecto
+        assertEquals(Map.of(5L, "Ana"), client.getFirstNamesByIds(List.of(5L, 6L)));
+        authService.verify();
+    }
+
+    @Test
+    void emptyPagesDoNotCallTheAuthService() {
+        assertEquals(Map.of(), client.getFirstNamesByIds(List.of()));
+        authService.verify();
+    }
+
+    @Test
+    void bulkLookupOnlyAsksForNamesMissingFromTheCache() {
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-user-by-id/1"))
+                .andRespond(withSuccess("Ana", MediaType.TEXT_PLAIN));
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-users-by-ids"))
+                .andExpect(content().json("[2]"))
+                .andRespond(withSuccess("{\"2\":\"Luis\"}", MediaType.APPLICATION_JSON));
+
+        assertEquals("Ana", client.getFirstNameById(1L));
+        assertEquals(Map.of(1L, "Ana", 2L, "Luis"), client.getFirstNamesByIds(List.of(1L, 2L)));
+        assertEquals("Luis", client.getFirstNameById(2L));
+
+        authService.verify();
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "userDirectory.namesById")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void unknownEmailsAreCachedNegatively() {
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-id-by-email?email=nadie%40nomcci.com"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-id-by-email?email=ana%40nomcci.com"))
+                .andRespond(withSuccess("5", MediaType.APPLICATION_JSON));
+
+        assertNull(client.getUserIdByEmail("nadie@nomcci.com"));
+        assertNull(client.getUserIdByEmail("nadie@nomcci.com"));
+        assertEquals(5L, client.getUserIdByEmail("ana@nomcci.com"));
+        assertEquals(5L, client.getUserIdByEmail(" Ana@nomcci.com"));
+
+        authService.verify();
+    }
+
+    @Test
+    void emailsAreEncodedInTheQueryString() {
+        // Sin codificar, el "+" llegaría al servicio de autenticación como un espacio
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-id-by-email?email=luis%2Bpagos%40nomcci.com"))
+                .andRespond(withSuccess("7", MediaType.APPLICATION_JSON));
+
+        assertEquals(7L, client.getUserIdByEmail("luis+pagos@nomcci.com"));
+
+        authService.verify();
+    }
+
+    @Test
+    void theAuthServiceReceivesTheEmailAsGivenWhileTheCacheKeyIsNormalised() {
+        authService.expect(requestTo(AUTH_URL + "/internal/wallet/get-id-by-email?email=Ana.Perez%40nomcci.com"))
+                .andRespond(withSuccess("9", MediaType.APPLICATION_JSON));
+
+        assertEquals(9L, client.getUserIdByEmail("Ana.Perez@nomcci.com"));
+        // Misma clave de caché: no hay segunda llamada
+        assertEquals(9L, client.getUserIdByEmail(" ana.perez@NOMCCI.com "));
+
+        authService.verify();
+    }
+}
@@ -0,0 +1,105 @@
+package com.nomcci.wallet.management.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPairGenerator;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class JwtUtilTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(2048);
+        jwtUtil = spy(new JwtUtil(keyGen.generateKeyPair().getPrivate(), clock));
+        ReflectionTestUtils.setField(jwtUtil, "issuerUrl", "http://wallet.local");
+        ReflectionTestUtils.setField(jwtUtil, "tokenTtl", Duration.ofSeconds(36));
+        ReflectionTestUtils.setField(jwtUtil, "refreshMargin", Duration.ofSeconds(5));
+    }
+
+    @Test
+    void concurrentCallersShareASingleSignature() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Callable<String>> calls = IntStream.range(0, 200)
+                    .<Callable<String>>mapToObj(i -> jwtUtil::generateServiceToken)
+                    .toList();
+            List<String> tokens = executor.invokeAll(calls).stream().map(JwtUtilTest::join).distinct().toList();
+
+            assertEquals(1, tokens.size());
+            verify(jwtUtil, times(1)).signServiceToken(any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void tokenIsRefreshedJustBeforeItExpires() {
+        String first = jwtUtil.generateServiceToken();
+
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals(first, jwtUtil.generateServiceToken());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertNotEquals(first, jwtUtil.generateServiceToken());
+        verify(jwtUtil, times(2)).signServiceToken(any());
+    }
+
+    private static String join(Future<String> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}